@@ -1,5 +1,6 @@
 package com.s4p.entreprise.config;
 
+import com.s4p.entreprise.security.BCryptCostPolicy;
 import com.s4p.entreprise.security.JwtAuthenticationFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -49,6 +50,7 @@ public class SecurityConfig {
                 // Routes admin (création d'utilisateurs)
                 .requestMatchers(HttpMethod.POST, "/admin/users").hasRole("ADMIN")
                 .requestMatchers("/admin/**").hasRole("ADMIN")
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 
                 // Routes utilisateurs (accessible aux utilisateurs authentifiés)
                 .requestMatchers("/users/**").authenticated()
@@ -76,8 +78,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(BCryptCostPolicy bCryptCostPolicy) {
+        return new BCryptPasswordEncoder(bCryptCostPolicy.getStrength());
     }
 
     @Bean
@@ -2,15 +2,24 @@ package com.s4p.entreprise.controller;
 
 import com.s4p.entreprise.dto.CreateUserRequest;
 import com.s4p.entreprise.dto.UserDTO;
+import com.s4p.entreprise.dto.UserImportReportDTO;
+import com.s4p.entreprise.dto.UserPageDTO;
+import com.s4p.entreprise.model.User;
 import com.s4p.entreprise.repository.UserRepository;
+import com.s4p.entreprise.service.ImportAlreadyRunningException;
+import com.s4p.entreprise.service.UserImportService;
 import com.s4p.entreprise.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -22,6 +31,9 @@ public class AdminController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserImportService userImportService;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -41,12 +53,49 @@ public class AdminController {
     }
 
     /**
-     * Obtenir la liste de tous les utilisateurs
+     * Importer des utilisateurs en masse (réservé aux admins)
+     * Corps : CSV avec ligne d'en-tête (text/csv) ou un objet JSON par ligne (application/x-ndjson)
+     * Colonnes : email, password, firstName, lastName, phone, department, position, role, vacationDays
+     */
+    @PostMapping(value = "/users/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        UserImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.valueOf("text/csv"))
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.NDJSON;
+        try {
+            UserImportReportDTO report = userImportService.importUsers(body, format);
+            return ResponseEntity.ok(report);
+        } catch (ImportAlreadyRunningException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Erreur lors de la lecture du fichier: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Obtenir les utilisateurs, page par page (pagination par curseur)
+     * ?all=true : ancienne réponse non paginée (tableau complet), conservée pour compatibilité
      */
     @GetMapping("/users")
-    public ResponseEntity<List<UserDTO>> getAllUsers() {
-        List<UserDTO> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<?> getAllUsers(
+            @RequestParam(defaultValue = "false") boolean all,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) User.Role role,
+            @RequestParam(required = false) Boolean active) {
+        if (all) {
+            List<UserDTO> users = userService.getAllUsers();
+            return ResponseEntity.ok(users);
+        }
+        try {
+            UserPageDTO page = userService.getUsersPage(cursor, size, department, role, active);
+            return ResponseEntity.ok(page);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     /**
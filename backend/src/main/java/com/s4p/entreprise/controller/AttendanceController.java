@@ -1,15 +1,27 @@
 package com.s4p.entreprise.controller;
 
 import com.s4p.entreprise.dto.AttendanceDTO;
+import com.s4p.entreprise.dto.AttendanceMatrixDTO;
+import com.s4p.entreprise.dto.AttendanceStatsDTO;
+import com.s4p.entreprise.dto.CheckAcknowledgementDTO;
+import com.s4p.entreprise.dto.PresenceHeatmapDTO;
+import com.s4p.entreprise.model.Attendance;
+import com.s4p.entreprise.service.AttendanceIngestionQueue;
 import com.s4p.entreprise.service.AttendanceService;
+import com.s4p.entreprise.service.IngestionCapacityExceededException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/attendances")
@@ -18,6 +30,9 @@ public class AttendanceController {
     @Autowired
     private AttendanceService attendanceService;
 
+    @Autowired
+    private AttendanceIngestionQueue attendanceIngestionQueue;
+
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     public ResponseEntity<List<AttendanceDTO>> getAllAttendances() {
@@ -37,6 +52,104 @@ public class AttendanceController {
         return ResponseEntity.ok(attendanceService.getAttendancesByDateRange(userId, startDate, endDate));
     }
 
+    /**
+     * Planning des présences sur une période (un caractère de statut par jour et par utilisateur)
+     * URL : /attendances/matrix?from=2026-10-01&to=2026-10-31&department=IT
+     */
+    @GetMapping("/matrix")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> getAttendanceMatrix(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String department) {
+        try {
+            AttendanceMatrixDTO matrix = attendanceService.getAttendanceMatrix(from, to, department);
+            return ResponseEntity.ok(matrix);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Nombre de jours par statut pour un utilisateur (ex. jours de télétravail du mois)
+     * URL : /attendances/calendar/user/5?from=2026-10-01&to=2026-10-31
+     */
+    @GetMapping("/calendar/user/{userId}")
+    public ResponseEntity<?> getPresenceCounts(
+            @PathVariable Long userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            Map<Attendance.AttendanceStatus, Integer> counts = attendanceService.getPresenceCounts(userId, from, to);
+            return ResponseEntity.ok(counts);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Carte de présence par jour (statuts de présence par défaut, ou ceux de status)
+     * URL : /attendances/calendar/heatmap?from=2026-01-01&to=2026-12-31&department=IT&status=REMOTE
+     */
+    @GetMapping("/calendar/heatmap")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> getPresenceHeatmap(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) List<Attendance.AttendanceStatus> status) {
+        try {
+            PresenceHeatmapDTO heatmap = attendanceService.getPresenceHeatmap(from, to, department, status);
+            return ResponseEntity.ok(heatmap);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Pointages par statut et par département sur une journée (aujourd'hui par défaut)
+     * URL : /attendances/stats/daily?date=2026-10-17&department=IT
+     */
+    @GetMapping("/stats/daily")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> getDailyStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String department) {
+        try {
+            AttendanceStatsDTO stats = attendanceService.getDailyStats(date != null ? date : LocalDate.now(), department);
+            return ResponseEntity.ok(stats);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Pointages par statut et par département sur un mois (mois en cours par défaut)
+     * URL : /attendances/stats/monthly?month=2026-10&department=IT
+     */
+    @GetMapping("/stats/monthly")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> getMonthlyStats(
+            @RequestParam(required = false) YearMonth month,
+            @RequestParam(required = false) String department) {
+        try {
+            AttendanceStatsDTO stats = attendanceService.getMonthlyStats(month != null ? month : YearMonth.now(), department);
+            return ResponseEntity.ok(stats);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Reconstruire les statistiques depuis la base
+     */
+    @PostMapping("/stats/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> rebuildStats() {
+        int attendances = attendanceService.rebuildStats();
+        return ResponseEntity.ok("Statistiques reconstruites : " + attendances + " pointages");
+    }
+
     @PostMapping("/user/{userId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     public ResponseEntity<AttendanceDTO> createAttendance(
@@ -46,15 +159,35 @@ public class AttendanceController {
     }
 
     @PostMapping("/check-in/{userId}")
-    public ResponseEntity<AttendanceDTO> checkIn(@PathVariable Long userId) {
+    public ResponseEntity<?> checkIn(@PathVariable Long userId) {
+        if (attendanceIngestionQueue.isEnabled()) {
+            return accepted(() -> attendanceIngestionQueue.checkIn(userId));
+        }
         return ResponseEntity.ok(attendanceService.checkIn(userId));
     }
 
     @PostMapping("/check-out/{userId}")
-    public ResponseEntity<AttendanceDTO> checkOut(@PathVariable Long userId) {
+    public ResponseEntity<?> checkOut(@PathVariable Long userId) {
+        if (attendanceIngestionQueue.isEnabled()) {
+            return accepted(() -> attendanceIngestionQueue.checkOut(userId));
+        }
         return ResponseEntity.ok(attendanceService.checkOut(userId));
     }
 
+    /**
+     * Pointage mis en file (ingestion différée) : 202 avec le pointage reçu (utilisateur, jour, heure, type),
+     * 503 si la file est pleine
+     */
+    private ResponseEntity<?> accepted(Supplier<CheckAcknowledgementDTO> submission) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(submission.get());
+        } catch (IngestionCapacityExceededException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     public ResponseEntity<AttendanceDTO> updateAttendance(
@@ -2,9 +2,15 @@ package com.s4p.entreprise.controller;
 
 import com.s4p.entreprise.dto.JwtAuthResponse;
 import com.s4p.entreprise.dto.LoginRequest;
+import com.s4p.entreprise.security.LoginCapacityExceededException;
+import com.s4p.entreprise.security.LoginRateLimiter;
+import com.s4p.entreprise.security.TooManyLoginAttemptsException;
 import com.s4p.entreprise.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,15 +22,29 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
     /**
      * Login endpoint - Accessible à tous
      * URL complète : http://localhost:8080/api/auth/login
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
         try {
+            // Limiter les tentatives avant tout calcul BCrypt
+            loginRateLimiter.checkLoginAttempt(loginRequest.getEmail(), request.getRemoteAddr());
+
             JwtAuthResponse response = authService.login(loginRequest);
             return ResponseEntity.ok(response);
+        } catch (TooManyLoginAttemptsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(e.getMessage());
+        } catch (LoginCapacityExceededException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Email ou mot de passe incorrect");
         }
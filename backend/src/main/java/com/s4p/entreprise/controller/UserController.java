@@ -2,19 +2,24 @@ package com.s4p.entreprise.controller;
 
 import com.s4p.entreprise.dto.ChangePasswordRequest;
 import com.s4p.entreprise.dto.UserDTO;
+import com.s4p.entreprise.dto.UserPageDTO;
 import com.s4p.entreprise.model.User;
 import com.s4p.entreprise.repository.UserRepository;
+import com.s4p.entreprise.service.UserDirectory;
 import com.s4p.entreprise.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/users")
@@ -30,16 +35,35 @@ public class UserController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserDirectory userDirectory;
+
     /**
-     * Obtenir tous les utilisateurs
+     * Obtenir les utilisateurs, page par page (pagination par curseur)
      * Accessible à tous les utilisateurs authentifiés
+     * ?all=true : ancienne réponse non paginée (tableau complet), conservée pour compatibilité
      */
     @GetMapping
-    public ResponseEntity<List<UserDTO>> getAllUsers() {
-        System.out.println("📋 GET /users - Récupération de tous les utilisateurs");
-        List<UserDTO> users = userService.getAllUsers();
-        System.out.println("✅ " + users.size() + " utilisateurs trouvés");
-        return ResponseEntity.ok(users);
+    public ResponseEntity<?> getAllUsers(
+            @RequestParam(defaultValue = "false") boolean all,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) User.Role role,
+            @RequestParam(required = false) Boolean active,
+            WebRequest request) {
+        if (all) {
+            System.out.println("📋 GET /users?all=true - Récupération de tous les utilisateurs");
+            return fromDirectory(request, UserDirectory.Snapshot::all);
+        }
+
+        System.out.println("📋 GET /users - Page d'utilisateurs");
+        try {
+            UserPageDTO page = userService.getUsersPage(cursor, size, department, role, active);
+            return ResponseEntity.ok(page);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     /**
@@ -66,31 +90,41 @@ public class UserController {
      * Obtenir les utilisateurs actifs
      */
     @GetMapping("/active")
-    public ResponseEntity<List<UserDTO>> getActiveUsers() {
+    public ResponseEntity<List<UserDTO>> getActiveUsers(WebRequest request) {
         System.out.println("✅ GET /users/active");
-        List<UserDTO> users = userService.getActiveUsers();
-        return ResponseEntity.ok(users);
+        return fromDirectory(request, UserDirectory.Snapshot::active);
+    }
+
+    /**
+     * Rechercher des utilisateurs (autocomplétion) : ?q=dup jean&limit=10
+     * Par défaut seuls les utilisateurs actifs sont retournés
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<UserDTO>> searchUsers(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean includeInactive) {
+        System.out.println("🔎 GET /users/search?q=" + q);
+        return ResponseEntity.ok(userService.searchUsers(q, limit, includeInactive));
     }
 
     /**
      * Obtenir les utilisateurs par département
      */
     @GetMapping("/department/{department}")
-    public ResponseEntity<List<UserDTO>> getUsersByDepartment(@PathVariable String department) {
+    public ResponseEntity<List<UserDTO>> getUsersByDepartment(@PathVariable String department, WebRequest request) {
         System.out.println("🏢 GET /users/department/" + department);
-        List<UserDTO> users = userService.getUsersByDepartment(department);
-        return ResponseEntity.ok(users);
+        return fromDirectory(request, directory -> directory.byDepartment(department));
     }
 
     /**
      * Obtenir les utilisateurs par rôle
      */
     @GetMapping("/role/{role}")
-    public ResponseEntity<List<UserDTO>> getUsersByRole(@PathVariable String role) {
+    public ResponseEntity<List<UserDTO>> getUsersByRole(@PathVariable String role, WebRequest request) {
         System.out.println("🔐 GET /users/role/" + role);
         User.Role userRole = User.Role.valueOf(role.toUpperCase());
-        List<UserDTO> users = userService.getUsersByRole(userRole);
-        return ResponseEntity.ok(users);
+        return fromDirectory(request, directory -> directory.byRole(userRole.name()));
     }
 
     /**
@@ -117,7 +151,7 @@ public class UserController {
         
         try {
             // Vérifier que l'utilisateur existe
-            User user = userRepository.findById(userId)
+            User user = userRepository.findUncachedById(userId)
                     .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
 
             // Vérifier l'ancien mot de passe
@@ -166,4 +200,23 @@ public class UserController {
         userService.deleteUser(id);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Servir une vue de l'annuaire en mémoire avec son ETag précalculé (304 si inchangé)
+     */
+    private ResponseEntity<List<UserDTO>> fromDirectory(WebRequest request,
+                                                        Function<UserDirectory.Snapshot, List<UserDTO>> view) {
+        UserDirectory.Snapshot directory = userDirectory.snapshot();
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (request.checkNotModified(directory.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(directory.etag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(directory.etag())
+                .cacheControl(cacheControl)
+                .body(view.apply(directory));
+    }
+}
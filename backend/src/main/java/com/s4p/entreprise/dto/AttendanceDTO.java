@@ -2,11 +2,13 @@ package com.s4p.entreprise.dto;
 
 import com.s4p.entreprise.model.Attendance;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Data
+@NoArgsConstructor
 public class AttendanceDTO {
     private Long id;
     private Long userId;
@@ -16,6 +18,21 @@ public class AttendanceDTO {
     private LocalTime checkOut;
     private Attendance.AttendanceStatus status;
     private String notes;
+
+    /**
+     * Constructeur des projections JPQL (AttendanceRepository) : colonnes lues directement, sans entité
+     */
+    public AttendanceDTO(Long id, Long userId, String userFirstName, String userLastName, LocalDate date,
+                         LocalTime checkIn, LocalTime checkOut, Attendance.AttendanceStatus status, String notes) {
+        this.id = id;
+        this.userId = userId;
+        this.userName = userFirstName + " " + userLastName;
+        this.date = date;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.status = status;
+        this.notes = notes;
+    }
     
     public static AttendanceDTO fromAttendance(Attendance attendance) {
         AttendanceDTO dto = new AttendanceDTO();
@@ -0,0 +1,59 @@
+package com.s4p.entreprise.dto;
+
+import com.s4p.entreprise.model.Attendance;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Planning des présences : une ligne par utilisateur, une colonne par jour de from à to.
+ * Chaque ligne encode ses jours dans une chaîne (un caractère par jour, voir LEGEND) et
+ * des tableaux de même longueur pour l'id du pointage et les heures d'arrivée / de départ.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceMatrixDTO {
+
+    public static final char NONE = '.';
+
+    public static final Map<Character, Attendance.AttendanceStatus> LEGEND = Map.of(
+            'P', Attendance.AttendanceStatus.PRESENT,
+            'A', Attendance.AttendanceStatus.ABSENT,
+            'L', Attendance.AttendanceStatus.LATE,
+            'H', Attendance.AttendanceStatus.HALF_DAY,
+            'R', Attendance.AttendanceStatus.REMOTE);
+
+    private LocalDate from;
+    private LocalDate to;
+    private int days;
+    private Map<Character, Attendance.AttendanceStatus> legend = LEGEND;
+    private List<Row> rows;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Row {
+        private Long userId;
+        private String userName;
+        private String department;
+        private String statuses; // '.' = aucun pointage ce jour-là
+        private long[] attendanceIds; // 0 = aucun pointage
+        private int[] checkIns; // Minutes depuis minuit, -1 = non renseigné
+        private int[] checkOuts;
+    }
+
+    public static char code(Attendance.AttendanceStatus status) {
+        return switch (status) {
+            case PRESENT -> 'P';
+            case ABSENT -> 'A';
+            case LATE -> 'L';
+            case HALF_DAY -> 'H';
+            case REMOTE -> 'R';
+        };
+    }
+}
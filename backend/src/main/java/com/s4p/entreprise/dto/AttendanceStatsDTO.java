@@ -0,0 +1,21 @@
+package com.s4p.entreprise.dto;
+
+import com.s4p.entreprise.model.Attendance;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Nombre de pointages par statut sur une période (jour AAAA-MM-JJ ou mois AAAA-MM),
+ * par département ("" = sans département) et au total
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceStatsDTO {
+    private String period;
+    private Map<String, Map<Attendance.AttendanceStatus, Integer>> departments;
+    private Map<Attendance.AttendanceStatus, Integer> total;
+}
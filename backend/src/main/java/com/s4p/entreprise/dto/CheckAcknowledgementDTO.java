@@ -0,0 +1,28 @@
+package com.s4p.entreprise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Pointage accepté par l'ingestion différée (réponse 202) : seulement ce qui a été reçu.
+ * La ligne de pointage n'est écrite qu'au prochain lot ; un check-out sans arrivée le même jour
+ * y est ignoré.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckAcknowledgementDTO {
+    private Long userId;
+    private String userName;
+    private LocalDate date;
+    private LocalTime time; // Heure enregistrée pour ce pointage
+    private Type type;
+
+    public enum Type {
+        CHECK_IN, CHECK_OUT
+    }
+}
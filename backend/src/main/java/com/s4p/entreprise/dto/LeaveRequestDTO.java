@@ -2,11 +2,13 @@ package com.s4p.entreprise.dto;
 
 import com.s4p.entreprise.model.LeaveRequest;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class LeaveRequestDTO {
     private Long id;
     private Long userId;
@@ -21,6 +23,31 @@ public class LeaveRequestDTO {
     private LocalDateTime approvedAt;
     private String rejectionReason;
     private LocalDateTime createdAt;
+
+    /**
+     * Constructeur des projections JPQL (LeaveRequestRepository) : colonnes lues directement, sans entité
+     */
+    public LeaveRequestDTO(Long id, Long userId, String userFirstName, String userLastName,
+                           LocalDate startDate, LocalDate endDate, LeaveRequest.LeaveType leaveType, String reason,
+                           LeaveRequest.LeaveStatus status,
+                           Long approvedById, String approvedByFirstName, String approvedByLastName,
+                           LocalDateTime approvedAt, String rejectionReason, LocalDateTime createdAt) {
+        this.id = id;
+        this.userId = userId;
+        this.userName = userFirstName + " " + userLastName;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.leaveType = leaveType;
+        this.reason = reason;
+        this.status = status;
+        if (approvedById != null) {
+            this.approvedById = approvedById;
+            this.approvedByName = approvedByFirstName + " " + approvedByLastName;
+        }
+        this.approvedAt = approvedAt;
+        this.rejectionReason = rejectionReason;
+        this.createdAt = createdAt;
+    }
     
     public static LeaveRequestDTO fromLeaveRequest(LeaveRequest request) {
         LeaveRequestDTO dto = new LeaveRequestDTO();
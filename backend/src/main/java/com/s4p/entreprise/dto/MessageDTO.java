@@ -2,10 +2,12 @@ package com.s4p.entreprise.dto;
 
 import com.s4p.entreprise.model.Message;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class MessageDTO {
     private Long id;
     private Long senderId;
@@ -17,6 +19,24 @@ public class MessageDTO {
     private Boolean read;
     private LocalDateTime readAt;
     private LocalDateTime createdAt;
+
+    /**
+     * Constructeur des projections JPQL (MessageRepository) : colonnes lues directement, sans entité
+     */
+    public MessageDTO(Long id, Long senderId, String senderFirstName, String senderLastName,
+                      Long recipientId, String recipientFirstName, String recipientLastName,
+                      String subject, String content, Boolean read, LocalDateTime readAt, LocalDateTime createdAt) {
+        this.id = id;
+        this.senderId = senderId;
+        this.senderName = senderFirstName + " " + senderLastName;
+        this.recipientId = recipientId;
+        this.recipientName = recipientFirstName + " " + recipientLastName;
+        this.subject = subject;
+        this.content = content;
+        this.read = read;
+        this.readAt = readAt;
+        this.createdAt = createdAt;
+    }
     
     public static MessageDTO fromMessage(Message message) {
         MessageDTO dto = new MessageDTO();
@@ -0,0 +1,24 @@
+package com.s4p.entreprise.dto;
+
+import com.s4p.entreprise.model.Attendance;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Carte de présence d'une équipe : counts[i] = nombre d'employés ayant l'un des statuts demandés
+ * le i-ème jour de from à to, sur employees employés actifs.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceHeatmapDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private Set<Attendance.AttendanceStatus> statuses;
+    private int employees;
+    private int[] counts;
+}
@@ -2,11 +2,13 @@ package com.s4p.entreprise.dto;
 
 import com.s4p.entreprise.model.Task;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class TaskDTO {
     private Long id;
     private String title;
@@ -20,6 +22,28 @@ public class TaskDTO {
     private LocalDate dueDate;
     private LocalDateTime completedAt;
     private LocalDateTime createdAt;
+
+    /**
+     * Constructeur des projections JPQL (TaskRepository) : colonnes lues directement, sans entité
+     */
+    public TaskDTO(Long id, String title, String description,
+                   Long assignedToId, String assignedToFirstName, String assignedToLastName,
+                   Long createdById, String createdByFirstName, String createdByLastName,
+                   Task.TaskStatus status, Task.TaskPriority priority, LocalDate dueDate,
+                   LocalDateTime completedAt, LocalDateTime createdAt) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.assignedToId = assignedToId;
+        this.assignedToName = assignedToFirstName + " " + assignedToLastName;
+        this.createdById = createdById;
+        this.createdByName = createdByFirstName + " " + createdByLastName;
+        this.status = status;
+        this.priority = priority;
+        this.dueDate = dueDate;
+        this.completedAt = completedAt;
+        this.createdAt = createdAt;
+    }
     
     public static TaskDTO fromTask(Task task) {
         TaskDTO dto = new TaskDTO();
@@ -1,9 +1,12 @@
 package com.s4p.entreprise.dto;
 
+import com.s4p.entreprise.model.User;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class UserDTO {
     private Long id;
     private String email;
@@ -16,4 +19,38 @@ public class UserDTO {
     private Integer vacationDays;
     private Boolean active;
     private LocalDateTime createdAt;
-}
\ No newline at end of file
+
+    /**
+     * Constructeur des projections JPQL (UserRepository) : ni mot de passe ni colonnes d'audit chargés
+     */
+    public UserDTO(Long id, String email, String firstName, String lastName, String phone, String department,
+                   String position, User.Role role, Integer vacationDays, Boolean active, LocalDateTime createdAt) {
+        this.id = id;
+        this.email = email;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.phone = phone;
+        this.department = department;
+        this.position = position;
+        this.role = role.name();
+        this.vacationDays = vacationDays;
+        this.active = active;
+        this.createdAt = createdAt;
+    }
+
+    public static UserDTO fromUser(User user) {
+        UserDTO dto = new UserDTO();
+        dto.setId(user.getId());
+        dto.setEmail(user.getEmail());
+        dto.setFirstName(user.getFirstName());
+        dto.setLastName(user.getLastName());
+        dto.setPhone(user.getPhone());
+        dto.setDepartment(user.getDepartment());
+        dto.setPosition(user.getPosition());
+        dto.setRole(user.getRole().name());
+        dto.setVacationDays(user.getVacationDays());
+        dto.setActive(user.getActive());
+        dto.setCreatedAt(user.getCreatedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,43 @@
+package com.s4p.entreprise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class UserImportReportDTO {
+    private int total;
+    private int created;
+    private int duplicates;
+    private int invalid;
+    private long durationMs;
+    private List<Row> rows = new ArrayList<>();
+
+    public void add(Row row) {
+        rows.add(row);
+        total++;
+        switch (row.getStatus()) {
+            case CREATED -> created++;
+            case DUPLICATE -> duplicates++;
+            case INVALID -> invalid++;
+        }
+    }
+
+    public enum Status {
+        CREATED, DUPLICATE, INVALID
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Row {
+        private int line; // Numéro de ligne dans le fichier importé
+        private String email;
+        private Status status;
+        private Long id; // Renseigné uniquement si CREATED
+        private String message;
+    }
+}
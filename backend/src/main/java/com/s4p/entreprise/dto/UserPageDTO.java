@@ -0,0 +1,17 @@
+package com.s4p.entreprise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPageDTO {
+    private List<UserDTO> items;
+    private String nextCursor; // null s'il n'y a plus de page
+    private boolean hasNext;
+    private int size;
+}
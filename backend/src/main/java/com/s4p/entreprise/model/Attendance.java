@@ -11,13 +11,18 @@ import java.time.LocalTime;
 
 @Entity
 @Table(name = "attendances")
+@NamedEntityGraph(name = Attendance.WITH_USERS, attributeNodes = {@NamedAttributeNode("user")})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Attendance {
 
+    // Graphe de chargement : utilisateurs liés récupérés par jointure (voir AttendanceRepository)
+    public static final String WITH_USERS = "Attendance.withUsers";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attendances_seq")
+    @SequenceGenerator(name = "attendances_seq", sequenceName = "attendances_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
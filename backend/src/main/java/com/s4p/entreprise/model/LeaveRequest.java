@@ -10,13 +10,18 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "leave_requests")
+@NamedEntityGraph(name = LeaveRequest.WITH_USERS, attributeNodes = {@NamedAttributeNode("user"), @NamedAttributeNode("approvedBy")})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class LeaveRequest {
 
+    // Graphe de chargement : utilisateurs liés récupérés par jointure (voir LeaveRequestRepository)
+    public static final String WITH_USERS = "LeaveRequest.withUsers";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "leave_requests_seq")
+    @SequenceGenerator(name = "leave_requests_seq", sequenceName = "leave_requests_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
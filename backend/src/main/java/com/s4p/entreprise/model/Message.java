@@ -9,13 +9,18 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "messages")
+@NamedEntityGraph(name = Message.WITH_USERS, attributeNodes = {@NamedAttributeNode("sender"), @NamedAttributeNode("recipient")})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Message {
 
+    // Graphe de chargement : utilisateurs liés récupérés par jointure (voir MessageRepository)
+    public static final String WITH_USERS = "Message.withUsers";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "messages_seq")
+    @SequenceGenerator(name = "messages_seq", sequenceName = "messages_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -10,13 +10,18 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "tasks")
+@NamedEntityGraph(name = Task.WITH_USERS, attributeNodes = {@NamedAttributeNode("assignedTo"), @NamedAttributeNode("createdBy")})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Task {
 
+    // Graphe de chargement : utilisateurs liés récupérés par jointure (voir TaskRepository)
+    public static final String WITH_USERS = "Task.withUsers";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_seq")
+    @SequenceGenerator(name = "tasks_seq", sequenceName = "tasks_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
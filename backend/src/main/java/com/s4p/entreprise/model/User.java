@@ -2,6 +2,9 @@ package com.s4p.entreprise.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,11 +15,18 @@ import java.util.List;
 
 @Data
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_active", columnList = "active"),
+        @Index(name = "idx_users_role", columnList = "role"),
+        @Index(name = "idx_users_last_name_id", columnList = "lastName, id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class User implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -50,6 +60,11 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private Integer vacationDays = 25;
 
+    // Incrémenté pour invalider les tokens JWT déjà émis (désactivation, reset du mot de passe)
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer tokenVersion = 0;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,33 @@
+package com.s4p.entreprise.repository;
+
+import com.s4p.entreprise.model.Attendance;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Lecture en flux du statut de chaque pointage, sans entité ni DTO, pour reconstruire les index
+ * mémoire (fragment de AttendanceRepository)
+ */
+public interface AttendanceCalendarRepository {
+
+    /**
+     * Parcourir (utilisateur, jour, statut) de tous les pointages à partir de since, ligne par ligne.
+     * À appeler dans une transaction : les lignes sont lues par paquets au lieu d'être toutes chargées.
+     */
+    void forEachDayStatus(LocalDate since, DayStatusHandler handler);
+
+    /**
+     * Statut en base de chaque jour demandé, en une requête (jour absent du résultat = pas de pointage)
+     */
+    Map<Day, Attendance.AttendanceStatus> findDayStatuses(Collection<Day> days);
+
+    record Day(long userId, LocalDate date) {
+    }
+
+    @FunctionalInterface
+    interface DayStatusHandler {
+        void accept(long userId, LocalDate date, Attendance.AttendanceStatus status);
+    }
+}
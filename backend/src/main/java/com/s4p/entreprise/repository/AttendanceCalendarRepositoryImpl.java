@@ -0,0 +1,59 @@
+package com.s4p.entreprise.repository;
+
+import com.s4p.entreprise.model.Attendance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+class AttendanceCalendarRepositoryImpl implements AttendanceCalendarRepository {
+
+    private static final String DAY_STATUS_SQL = "SELECT user_id, date, status FROM attendances WHERE date >= ?";
+
+    private static final String DAY_STATUSES_SQL = "SELECT a.user_id, a.date, a.status FROM attendances a "
+            + "JOIN unnest(?::bigint[], ?::date[]) AS d(user_id, date) ON a.user_id = d.user_id AND a.date = d.date";
+
+    // Taille des paquets lus par le curseur PostgreSQL (transaction requise)
+    private static final int FETCH_SIZE = 5000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void forEachDayStatus(LocalDate since, DayStatusHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(DAY_STATUS_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setObject(1, since);
+            return statement;
+        }, (RowCallbackHandler) rs -> handler.accept(rs.getLong(1), rs.getObject(2, LocalDate.class),
+                Attendance.AttendanceStatus.valueOf(rs.getString(3))));
+    }
+
+    @Override
+    public Map<Day, Attendance.AttendanceStatus> findDayStatuses(Collection<Day> days) {
+        Map<Day, Attendance.AttendanceStatus> statuses = new HashMap<>();
+        if (days.isEmpty()) {
+            return statuses;
+        }
+        Long[] userIds = new Long[days.size()];
+        String[] dates = new String[days.size()];
+        int i = 0;
+        for (Day day : days) {
+            userIds[i] = day.userId();
+            dates[i] = day.date().toString();
+            i++;
+        }
+        jdbcTemplate.query(DAY_STATUSES_SQL, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", userIds));
+            ps.setArray(2, ps.getConnection().createArrayOf("date", dates));
+        }, (RowCallbackHandler) rs -> statuses.put(new Day(rs.getLong(1), rs.getObject(2, LocalDate.class)),
+                Attendance.AttendanceStatus.valueOf(rs.getString(3))));
+        return statuses;
+    }
+}
@@ -0,0 +1,45 @@
+package com.s4p.entreprise.repository;
+
+import com.s4p.entreprise.dto.AttendanceDTO;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Pointages d'arrivée et de départ en une seule requête SQL, sans charger l'utilisateur ni le pointage
+ * (fragment de AttendanceRepository)
+ */
+public interface AttendanceCheckRepository {
+
+    /**
+     * Créer le pointage du jour ou mettre à jour l'existant (unicité sur user_id, date).
+     * Vide si l'utilisateur n'existe pas.
+     */
+    Optional<AttendanceDTO> upsertCheckIn(Long userId, LocalDate date, LocalTime checkIn);
+
+    /**
+     * Renseigner l'heure de départ sur le pointage du jour. Vide s'il n'y a pas de pointage.
+     */
+    Optional<AttendanceDTO> updateCheckOut(Long userId, LocalDate date, LocalTime checkOut);
+
+    /**
+     * Appliquer un lot de pointages d'arrivée en une requête (au plus un par utilisateur et par jour).
+     * Les utilisateurs supprimés entre-temps sont ignorés. Retourne le nombre de lignes écrites.
+     */
+    int upsertCheckIns(List<Check> checks);
+
+    /**
+     * Appliquer un lot de pointages de départ en une requête (au plus un par utilisateur et par jour).
+     * Retourne le nombre de pointages trouvés.
+     */
+    int updateCheckOuts(List<Check> checks);
+
+    /**
+     * Pointage reçu : heure pointée et instant d'enregistrement (created_at / updated_at)
+     */
+    record Check(Long userId, LocalDate date, LocalTime time, LocalDateTime recordedAt) {
+    }
+}
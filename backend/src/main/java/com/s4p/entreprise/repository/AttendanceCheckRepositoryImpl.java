@@ -0,0 +1,102 @@
+package com.s4p.entreprise.repository;
+
+import com.s4p.entreprise.dto.AttendanceDTO;
+import com.s4p.entreprise.model.Attendance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+class AttendanceCheckRepositoryImpl implements AttendanceCheckRepository {
+
+    // Insertion depuis la ligne de l'utilisateur : aucune ligne (et aucun nextval) s'il n'existe pas.
+    // En cas de conflit, PostgreSQL met à jour la ligne existante dans la même instruction : deux
+    // pointages simultanés du même utilisateur ne créent jamais de doublon.
+    private static final String CHECK_IN_SQL = "WITH u AS (SELECT id, first_name, last_name FROM users WHERE id = ?), "
+            + "a AS (INSERT INTO attendances (id, user_id, date, check_in, status, created_at, updated_at) "
+            + "SELECT nextval('attendances_seq'), u.id, ?, ?, 'PRESENT', ?, ? FROM u "
+            + "ON CONFLICT (user_id, date) DO UPDATE SET check_in = EXCLUDED.check_in, status = EXCLUDED.status, "
+            + "updated_at = EXCLUDED.updated_at "
+            + "RETURNING id, user_id, date, check_in, check_out, status, notes) "
+            + "SELECT a.*, u.first_name, u.last_name FROM a JOIN u ON u.id = a.user_id";
+
+    private static final String CHECK_OUT_SQL = "WITH a AS (UPDATE attendances SET check_out = ?, updated_at = ? "
+            + "WHERE user_id = ? AND date = ? "
+            + "RETURNING id, user_id, date, check_in, check_out, status, notes) "
+            + "SELECT a.*, u.first_name, u.last_name FROM a JOIN users u ON u.id = a.user_id";
+
+    // Lots : un tableau par colonne, dépliés par unnest (même requête préparée quelle que soit la taille du lot)
+    private static final String BATCH_CHECK_IN_SQL = "INSERT INTO attendances (id, user_id, date, check_in, status, created_at, updated_at) "
+            + "SELECT nextval('attendances_seq'), v.user_id, v.date, v.time, 'PRESENT', v.at, v.at "
+            + "FROM unnest(?::bigint[], ?::date[], ?::time[], ?::timestamp[]) AS v(user_id, date, time, at) "
+            + "JOIN users u ON u.id = v.user_id "
+            + "ON CONFLICT (user_id, date) DO UPDATE SET check_in = EXCLUDED.check_in, status = EXCLUDED.status, "
+            + "updated_at = EXCLUDED.updated_at";
+
+    private static final String BATCH_CHECK_OUT_SQL = "UPDATE attendances a SET check_out = v.time, updated_at = v.at "
+            + "FROM unnest(?::bigint[], ?::date[], ?::time[], ?::timestamp[]) AS v(user_id, date, time, at) "
+            + "WHERE a.user_id = v.user_id AND a.date = v.date";
+
+    private static final RowMapper<AttendanceDTO> DTO_MAPPER = (rs, rowNum) -> new AttendanceDTO(
+            rs.getLong("id"),
+            rs.getLong("user_id"),
+            rs.getString("first_name"),
+            rs.getString("last_name"),
+            rs.getObject("date", LocalDate.class),
+            rs.getObject("check_in", LocalTime.class),
+            rs.getObject("check_out", LocalTime.class),
+            Attendance.AttendanceStatus.valueOf(rs.getString("status")),
+            rs.getString("notes"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<AttendanceDTO> upsertCheckIn(Long userId, LocalDate date, LocalTime checkIn) {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.query(CHECK_IN_SQL, DTO_MAPPER, userId, date, checkIn, now, now)
+                .stream().findFirst();
+    }
+
+    @Override
+    public Optional<AttendanceDTO> updateCheckOut(Long userId, LocalDate date, LocalTime checkOut) {
+        return jdbcTemplate.query(CHECK_OUT_SQL, DTO_MAPPER, checkOut, LocalDateTime.now(), userId, date)
+                .stream().findFirst();
+    }
+
+    @Override
+    public int upsertCheckIns(List<Check> checks) {
+        return checks.isEmpty() ? 0 : jdbcTemplate.update(BATCH_CHECK_IN_SQL, columns(checks));
+    }
+
+    @Override
+    public int updateCheckOuts(List<Check> checks) {
+        return checks.isEmpty() ? 0 : jdbcTemplate.update(BATCH_CHECK_OUT_SQL, columns(checks));
+    }
+
+    private static PreparedStatementSetter columns(List<Check> checks) {
+        Long[] userIds = new Long[checks.size()];
+        String[] dates = new String[checks.size()];
+        String[] times = new String[checks.size()];
+        String[] recordedAt = new String[checks.size()];
+        for (int i = 0; i < checks.size(); i++) {
+            Check check = checks.get(i);
+            userIds[i] = check.userId();
+            dates[i] = check.date().toString();
+            times[i] = check.time().toString();
+            recordedAt[i] = check.recordedAt().toString();
+        }
+        return ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", userIds));
+            ps.setArray(2, ps.getConnection().createArrayOf("date", dates));
+            ps.setArray(3, ps.getConnection().createArrayOf("time", times));
+            ps.setArray(4, ps.getConnection().createArrayOf("timestamp", recordedAt));
+        };
+    }
+}
@@ -1,8 +1,11 @@
 package com.s4p.entreprise.repository;
 
+import com.s4p.entreprise.dto.AttendanceDTO;
 import com.s4p.entreprise.model.Attendance;
 import com.s4p.entreprise.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
@@ -10,15 +13,47 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
+public interface AttendanceRepository extends JpaRepository<Attendance, Long>, AttendanceCheckRepository,
+        AttendanceCalendarRepository {
     
+    // Projection pour les listes : uniquement les colonnes de AttendanceDTO, aucune entité chargée
+    String DTO_SELECT = "SELECT new com.s4p.entreprise.dto.AttendanceDTO(a.id, u.id, u.firstName, u.lastName, "
+            + "a.date, a.checkIn, a.checkOut, a.status, a.notes) "
+            + "FROM Attendance a JOIN a.user u ";
+    
+    @Query(DTO_SELECT)
+    List<AttendanceDTO> findAllDTOs();
+    
+    @Query(DTO_SELECT + "WHERE u.id = :userId")
+    List<AttendanceDTO> findDTOsByUserId(Long userId);
+    
+    @Query(DTO_SELECT + "WHERE u.id = :userId AND a.date BETWEEN :startDate AND :endDate")
+    List<AttendanceDTO> findDTOsByUserIdAndDateBetween(Long userId, LocalDate startDate, LocalDate endDate);
+    
+    @Query(DTO_SELECT + "WHERE a.date BETWEEN :startDate AND :endDate")
+    List<AttendanceDTO> findDTOsByDateBetween(LocalDate startDate, LocalDate endDate);
+    
+    // Relations chargées dans la même requête : les conversions en DTO ne déclenchent plus de requête par ligne
+    @Override
+    @EntityGraph(Attendance.WITH_USERS)
+    List<Attendance> findAll();
+    
+    @Override
+    @EntityGraph(Attendance.WITH_USERS)
+    Optional<Attendance> findById(Long id);
+    
+    @EntityGraph(Attendance.WITH_USERS)
     List<Attendance> findByUser(User user);
     
+    @EntityGraph(Attendance.WITH_USERS)
     List<Attendance> findByUserAndDateBetween(User user, LocalDate startDate, LocalDate endDate);
     
+    @EntityGraph(Attendance.WITH_USERS)
     Optional<Attendance> findByUserAndDate(User user, LocalDate date);
     
+    @EntityGraph(Attendance.WITH_USERS)
     List<Attendance> findByDateBetween(LocalDate startDate, LocalDate endDate);
     
+    @EntityGraph(Attendance.WITH_USERS)
     List<Attendance> findByStatus(Attendance.AttendanceStatus status);
 }
\ No newline at end of file
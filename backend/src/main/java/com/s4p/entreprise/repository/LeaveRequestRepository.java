@@ -1,23 +1,56 @@
 package com.s4p.entreprise.repository;
 
+import com.s4p.entreprise.dto.LeaveRequestDTO;
 import com.s4p.entreprise.model.LeaveRequest;
 import com.s4p.entreprise.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface LeaveRequestRepository extends JpaRepository<LeaveRequest, Long> {
     
+    // Projection pour les listes : uniquement les colonnes de LeaveRequestDTO, aucune entité chargée
+    String DTO_SELECT = "SELECT new com.s4p.entreprise.dto.LeaveRequestDTO(l.id, u.id, u.firstName, u.lastName, "
+            + "l.startDate, l.endDate, l.leaveType, l.reason, l.status, "
+            + "ap.id, ap.firstName, ap.lastName, l.approvedAt, l.rejectionReason, l.createdAt) "
+            + "FROM LeaveRequest l JOIN l.user u LEFT JOIN l.approvedBy ap ";
+    
+    @Query(DTO_SELECT)
+    List<LeaveRequestDTO> findAllDTOs();
+    
+    @Query(DTO_SELECT + "WHERE u.id = :userId ORDER BY l.createdAt DESC")
+    List<LeaveRequestDTO> findDTOsByUserId(Long userId);
+    
+    @Query(DTO_SELECT + "WHERE l.status = :status")
+    List<LeaveRequestDTO> findDTOsByStatus(LeaveRequest.LeaveStatus status);
+    
+    // Relations chargées dans la même requête : les conversions en DTO ne déclenchent plus de requête par ligne
+    @Override
+    @EntityGraph(LeaveRequest.WITH_USERS)
+    List<LeaveRequest> findAll();
+    
+    @Override
+    @EntityGraph(LeaveRequest.WITH_USERS)
+    Optional<LeaveRequest> findById(Long id);
+    
+    @EntityGraph(LeaveRequest.WITH_USERS)
     List<LeaveRequest> findByUser(User user);
     
+    @EntityGraph(LeaveRequest.WITH_USERS)
     List<LeaveRequest> findByStatus(LeaveRequest.LeaveStatus status);
     
+    @EntityGraph(LeaveRequest.WITH_USERS)
     List<LeaveRequest> findByUserAndStatus(User user, LeaveRequest.LeaveStatus status);
     
+    @EntityGraph(LeaveRequest.WITH_USERS)
     List<LeaveRequest> findByStartDateBetween(LocalDate startDate, LocalDate endDate);
     
+    @EntityGraph(LeaveRequest.WITH_USERS)
     List<LeaveRequest> findByUserOrderByCreatedAtDesc(User user);
 }
\ No newline at end of file
@@ -1,23 +1,55 @@
 package com.s4p.entreprise.repository;
 
+import com.s4p.entreprise.dto.MessageDTO;
 import com.s4p.entreprise.model.Message;
 import com.s4p.entreprise.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
     
+    // Projection pour les listes : uniquement les colonnes de MessageDTO, aucune entité chargée
+    String DTO_SELECT = "SELECT new com.s4p.entreprise.dto.MessageDTO(m.id, s.id, s.firstName, s.lastName, "
+            + "r.id, r.firstName, r.lastName, m.subject, m.content, m.read, m.readAt, m.createdAt) "
+            + "FROM Message m JOIN m.sender s JOIN m.recipient r ";
+    
+    @Query(DTO_SELECT + "WHERE r.id = :userId ORDER BY m.createdAt DESC")
+    List<MessageDTO> findDTOsByRecipientId(Long userId);
+    
+    @Query(DTO_SELECT + "WHERE s.id = :userId ORDER BY m.createdAt DESC")
+    List<MessageDTO> findDTOsBySenderId(Long userId);
+    
+    @Query(DTO_SELECT + "WHERE r.id = :userId AND m.read = false")
+    List<MessageDTO> findUnreadDTOsByRecipientId(Long userId);
+    
+    // Relations chargées dans la même requête : les conversions en DTO ne déclenchent plus de requête par ligne
+    @Override
+    @EntityGraph(Message.WITH_USERS)
+    List<Message> findAll();
+    
+    @Override
+    @EntityGraph(Message.WITH_USERS)
+    Optional<Message> findById(Long id);
+    
+    @EntityGraph(Message.WITH_USERS)
     List<Message> findBySender(User sender);
     
+    @EntityGraph(Message.WITH_USERS)
     List<Message> findByRecipient(User recipient);
     
+    @EntityGraph(Message.WITH_USERS)
     List<Message> findByRecipientAndReadFalse(User recipient);
     
+    @EntityGraph(Message.WITH_USERS)
     List<Message> findByRecipientOrderByCreatedAtDesc(User recipient);
     
+    @EntityGraph(Message.WITH_USERS)
     List<Message> findBySenderOrderByCreatedAtDesc(User sender);
     
     long countByRecipientAndReadFalse(User recipient);
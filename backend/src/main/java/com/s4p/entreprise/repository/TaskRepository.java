@@ -1,27 +1,62 @@
 package com.s4p.entreprise.repository;
 
+import com.s4p.entreprise.dto.TaskDTO;
 import com.s4p.entreprise.model.Task;
 import com.s4p.entreprise.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
     
+    // Projection pour les listes : uniquement les colonnes de TaskDTO, aucune entité chargée
+    String DTO_SELECT = "SELECT new com.s4p.entreprise.dto.TaskDTO(t.id, t.title, t.description, "
+            + "a.id, a.firstName, a.lastName, c.id, c.firstName, c.lastName, "
+            + "t.status, t.priority, t.dueDate, t.completedAt, t.createdAt) "
+            + "FROM Task t JOIN t.assignedTo a JOIN t.createdBy c ";
+    
+    @Query(DTO_SELECT)
+    List<TaskDTO> findAllDTOs();
+    
+    @Query(DTO_SELECT + "WHERE a.id = :userId ORDER BY t.dueDate ASC")
+    List<TaskDTO> findDTOsByAssignedToId(Long userId);
+    
+    @Query(DTO_SELECT + "WHERE t.status = :status")
+    List<TaskDTO> findDTOsByStatus(Task.TaskStatus status);
+    
+    // Relations chargées dans la même requête : les conversions en DTO ne déclenchent plus de requête par ligne
+    @Override
+    @EntityGraph(Task.WITH_USERS)
+    List<Task> findAll();
+    
+    @Override
+    @EntityGraph(Task.WITH_USERS)
+    Optional<Task> findById(Long id);
+    
+    @EntityGraph(Task.WITH_USERS)
     List<Task> findByAssignedTo(User user);
     
+    @EntityGraph(Task.WITH_USERS)
     List<Task> findByCreatedBy(User user);
     
+    @EntityGraph(Task.WITH_USERS)
     List<Task> findByStatus(Task.TaskStatus status);
     
+    @EntityGraph(Task.WITH_USERS)
     List<Task> findByAssignedToAndStatus(User user, Task.TaskStatus status);
     
+    @EntityGraph(Task.WITH_USERS)
     List<Task> findByDueDateBefore(LocalDate date);
     
+    @EntityGraph(Task.WITH_USERS)
     List<Task> findByAssignedToOrderByDueDateAsc(User user);
     
+    @EntityGraph(Task.WITH_USERS)
     List<Task> findByPriority(Task.TaskPriority priority);
 }
\ No newline at end of file
@@ -1,22 +1,56 @@
 package com.s4p.entreprise.repository;
 
+import com.s4p.entreprise.dto.UserDTO;
 import com.s4p.entreprise.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
+    
+    // Projection pour l'annuaire : ni mot de passe ni colonnes d'audit
+    @Query("SELECT new com.s4p.entreprise.dto.UserDTO(u.id, u.email, u.firstName, u.lastName, u.phone, "
+            + "u.department, u.position, u.role, u.vacationDays, u.active, u.createdAt) FROM User u ORDER BY u.id")
+    List<UserDTO> findAllDTOs();
+
+    @Query("SELECT new com.s4p.entreprise.dto.UserDTO(u.id, u.email, u.firstName, u.lastName, u.phone, "
+            + "u.department, u.position, u.role, u.vacationDays, u.active, u.createdAt) FROM User u "
+            + "WHERE u.id IN :ids ORDER BY u.id")
+    List<UserDTO> findDTOsByIdIn(Collection<Long> ids);
     
     Optional<User> findByEmail(String email);
     
     boolean existsByEmail(String email);
     
-    List<User> findByActiveTrue();
+    // Relu en base, jamais depuis le cache de second niveau (propre à chaque nœud) :
+    // pour les écritures et la vérification du mot de passe
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> findUncachedById(Long id);
+    
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(Collection<String> emails);
+    
+    @Query("SELECT u.id, u.email, u.tokenVersion FROM User u WHERE u.email IN :emails")
+    List<Object[]> findIdsAndTokenVersionsByEmailIn(Collection<String> emails);
+    
+    @Query("SELECT u.id, u.tokenVersion FROM User u")
+    List<Object[]> findAllTokenVersions();
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(Long id);
     
-    List<User> findByRole(User.Role role);
+    @Modifying
+    @Query("UPDATE User u SET u.vacationDays = u.vacationDays - :days WHERE u.id = :id")
+    int deductVacationDays(Long id, int days);
     
-    List<User> findByDepartment(String department);
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newPassword WHERE u.id = :id AND u.password = :previousPassword")
+    int replacePasswordHash(Long id, String previousPassword, String newPassword);
 }
\ No newline at end of file
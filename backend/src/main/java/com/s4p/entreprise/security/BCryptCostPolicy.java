@@ -0,0 +1,97 @@
+package com.s4p.entreprise.security;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Facteur de coût BCrypt de l'instance.
+ * Fixé par security.bcrypt.strength (valeur à épingler en production : tous les nœuds doivent avoir
+ * le même coût), ou, avec strength=0, calibré au démarrage pour qu'un hash prenne au plus
+ * security.bcrypt.target-hash-ms sur la machine hôte.
+ * Les hashs ne sont ré-encodés qu'à la hausse : un nœud plus lent ou calibré sous charge
+ * n'abaisse jamais le coût des mots de passe déjà stockés.
+ */
+@Component
+public class BCryptCostPolicy {
+
+    private static final Logger log = LoggerFactory.getLogger(BCryptCostPolicy.class);
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+    // Mesures de calibration : la médiane écarte un échantillon ralenti par la charge ou le GC
+    private static final int CALIBRATION_SAMPLES = 7;
+
+    // 0 = calibration automatique
+    @Value("${security.bcrypt.strength:12}")
+    private int configuredStrength;
+
+    @Value("${security.bcrypt.target-hash-ms:250}")
+    private long targetHashMs;
+
+    @Value("${security.bcrypt.min-strength:10}")
+    private int minStrength;
+
+    @Value("${security.bcrypt.max-strength:14}")
+    private int maxStrength;
+
+    private int strength;
+
+    @PostConstruct
+    public void init() {
+        this.strength = configuredStrength > 0 ? configuredStrength : calibrate();
+        log.info("Facteur de coût BCrypt : {}", strength);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    public int getMinStrength() {
+        return minStrength;
+    }
+
+    /**
+     * Le hash stocké a-t-il un coût inférieur à celui de l'instance ? (jamais de ré-encodage à la baisse)
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) < strength;
+    }
+
+    /**
+     * Chaque +1 double le temps de hash : on mesure au coût minimal (médiane de plusieurs mesures)
+     * puis on extrapole
+     */
+    private int calibrate() {
+        String salt = BCrypt.gensalt(minStrength);
+        BCrypt.hashpw("calibration", salt); // Préchauffage du JIT
+
+        double[] samples = new double[CALIBRATION_SAMPLES];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(samples);
+        double elapsedMs = samples[samples.length / 2];
+
+        int cost = minStrength;
+        while (cost < maxStrength && elapsedMs * 2 <= targetHashMs) {
+            elapsedMs *= 2;
+            cost++;
+        }
+        log.info("Calibration BCrypt : ~{} ms par hash au coût {} (cible {} ms)", Math.round(elapsedMs), cost, targetHashMs);
+        return cost;
+    }
+}
@@ -1,14 +1,17 @@
 package com.s4p.entreprise.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -29,6 +32,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Lazy
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    // "database" : principal chargé depuis la base (via le cache)
+    // "claims"   : principal construit uniquement à partir des claims du token
+    @Value("${jwt.authentication-mode:database}")
+    private String authenticationMode;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
                                     HttpServletResponse response, 
@@ -45,14 +62,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // Valider et traiter le token s'il existe
             if (StringUtils.hasText(jwt)) {
                 logger.debug("🔐 Validation du token...");
-                boolean isValid = jwtTokenProvider.validateToken(jwt);
-                logger.debug("🔐 Token valide: " + isValid);
+                TokenVerification verification = jwtTokenProvider.verify(jwt);
+                logger.debug("🔐 Token valide: " + verification.isValid());
                 
-                if (isValid) {
-                    String email = jwtTokenProvider.getUsernameFromToken(jwt);
+                if (verification.isValid() && !isRevoked(verification.claims())) {
+                    String email = verification.subject();
                     logger.debug("📧 Email extrait du token: " + email);
 
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                    UserDetails userDetails = resolveUserDetails(verification.claims());
                     logger.debug("👤 UserDetails chargé: " + userDetails.getUsername());
                     logger.debug("🔐 Authorities: " + userDetails.getAuthorities());
                     
@@ -64,7 +81,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                     logger.debug("✅ Authentication définie dans SecurityContext pour: " + email);
                 } else {
-                    logger.debug("❌ Token invalide");
+                    logger.debug("❌ Token invalide: " + verification.failure());
                 }
             } else {
                 logger.debug("⚠️ Aucun token JWT trouvé dans le header Authorization");
@@ -76,6 +93,45 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Refuser les tokens révoqués : utilisateur présent dans la liste de révocation,
+     * ou version de token invalidée (désactivation, reset du mot de passe).
+     * Les anciens tokens sans claim de version ne passent que par la liste de révocation.
+     */
+    private boolean isRevoked(Claims claims) {
+        if (tokenRevocationList.isRevoked(claims)) {
+            logger.debug("❌ Token révoqué pour: " + claims.getSubject());
+            return true;
+        }
+
+        Integer version = claims.get(JwtTokenProvider.CLAIM_TOKEN_VERSION, Integer.class);
+        Long userId = claims.get(JwtTokenProvider.CLAIM_USER_ID, Long.class);
+        if (version == null || userId == null) {
+            return false;
+        }
+        boolean current = tokenVersionRegistry.isCurrent(userId, version);
+        if (!current) {
+            logger.debug("❌ Version de token révoquée pour l'utilisateur " + userId);
+        }
+        return !current;
+    }
+
+    /**
+     * Construire le principal depuis les claims (mode "claims") ou depuis la base via le cache
+     */
+    private UserDetails resolveUserDetails(Claims claims) {
+        String role = claims.get(JwtTokenProvider.CLAIM_ROLE, String.class);
+        boolean selfContained = role != null && claims.get(JwtTokenProvider.CLAIM_TOKEN_VERSION) != null;
+
+        if ("claims".equalsIgnoreCase(authenticationMode) && selfContained) {
+            return User.withUsername(claims.getSubject())
+                    .password("")
+                    .roles(role)
+                    .build();
+        }
+        return userDetailsCache.get(claims.getSubject(), userDetailsService::loadUserByUsername);
+    }
+
     /**
      * Extraire le token JWT du header Authorization
      */
@@ -0,0 +1,123 @@
+package com.s4p.entreprise.security;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Clés asymétriques (ES256 / EdDSA) de signature et de vérification des tokens JWT,
+ * chargées depuis un keystore local. Le kid d'un token est l'alias de sa clé.
+ * Toutes les clés publiques du keystore sont acceptées en vérification : pendant une rotation,
+ * l'ancienne et la nouvelle clé restent valides. Un nœud sans alias de signature ne fait que vérifier.
+ * Le fichier est rechargé s'il change, sans redémarrage.
+ */
+@Component
+public class JwtKeyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyStore.class);
+
+    @Value("${jwt.keystore.path:}")
+    private String keystorePath;
+
+    @Value("${jwt.keystore.password:}")
+    private String keystorePassword;
+
+    @Value("${jwt.keystore.type:PKCS12}")
+    private String keystoreType;
+
+    @Value("${jwt.keystore.signing-alias:}")
+    private String signingAlias;
+
+    private volatile Map<String, PublicKey> verificationKeys = Collections.emptyMap();
+
+    private volatile PrivateKey signingKey;
+
+    private volatile long loadedModificationTime;
+
+    @PostConstruct
+    public void init() {
+        if (isEnabled()) {
+            load();
+        }
+    }
+
+    public boolean isEnabled() {
+        return StringUtils.hasText(keystorePath);
+    }
+
+    public PublicKey getVerificationKey(String kid) {
+        return kid != null ? verificationKeys.get(kid) : null;
+    }
+
+    public PrivateKey getSigningKey() {
+        return signingKey;
+    }
+
+    public String getSigningKeyId() {
+        return signingAlias;
+    }
+
+    /**
+     * Recharger le keystore si le fichier a été modifié (ajout ou retrait d'une clé)
+     */
+    @Scheduled(fixedDelayString = "${jwt.keystore.reload-interval-ms:60000}")
+    public void reloadIfModified() {
+        if (isEnabled() && new File(keystorePath).lastModified() != loadedModificationTime) {
+            load();
+        }
+    }
+
+    private synchronized void load() {
+        File file = new File(keystorePath);
+        char[] password = keystorePassword.toCharArray();
+        try (InputStream in = new FileInputStream(file)) {
+            KeyStore keyStore = KeyStore.getInstance(keystoreType);
+            keyStore.load(in, password);
+
+            Map<String, PublicKey> keys = new HashMap<>();
+            for (String alias : Collections.list(keyStore.aliases())) {
+                Certificate certificate = keyStore.getCertificate(alias);
+                if (certificate != null) {
+                    keys.put(alias, certificate.getPublicKey());
+                }
+            }
+
+            PrivateKey privateKey = null;
+            if (StringUtils.hasText(signingAlias)) {
+                Key key = keyStore.getKey(signingAlias, password);
+                if (!(key instanceof PrivateKey)) {
+                    throw new IllegalStateException("Aucune clé privée pour l'alias " + signingAlias);
+                }
+                privateKey = (PrivateKey) key;
+            }
+
+            this.verificationKeys = Map.copyOf(keys);
+            this.signingKey = privateKey;
+            this.loadedModificationTime = file.lastModified();
+            log.info("Keystore JWT chargé : {} clé(s) de vérification {}, signature avec '{}'",
+                    keys.size(), keys.keySet(), privateKey != null ? signingAlias : "-");
+        } catch (Exception e) {
+            if (signingKey == null && verificationKeys.isEmpty()) {
+                throw new IllegalStateException("Impossible de charger le keystore JWT " + keystorePath, e);
+            }
+            // Les clés déjà chargées restent actives
+            log.error("Rechargement du keystore JWT impossible, clés précédentes conservées", e);
+        }
+    }
+}
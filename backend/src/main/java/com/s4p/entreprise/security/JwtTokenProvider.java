@@ -1,65 +1,217 @@
 package com.s4p.entreprise.security;
 
+import com.s4p.entreprise.model.User;
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.security.InvalidKeyException;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
 import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.time.Instant;
 import java.util.Date;
 
 @Component
 public class JwtTokenProvider {
 
-    @Value("${jwt.secret}")
+    private static final Logger log = LoggerFactory.getLogger(JwtTokenProvider.class);
+
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+    // Instant d'émission à la milliseconde (iat est en secondes), utilisé par TokenRevocationList
+    public static final String CLAIM_ISSUED_AT_MILLIS = "iat_ms";
+
+    @Value("${jwt.secret:}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private long jwtExpirationInMs;
 
+    // En mode keystore : accepter encore les tokens HMAC sans kid émis avant la migration
+    @Value("${jwt.accept-legacy-hmac:false}")
+    private boolean acceptLegacyHmac;
+
+    // Date de passage au keystore (ISO-8601) : seuls les tokens HMAC émis avant elle, depuis moins
+    // de jwt.expiration, sont acceptés ; la fenêtre se referme d'elle-même après cutover + expiration
+    @Value("${jwt.legacy-hmac-cutover:}")
+    private String legacyHmacCutover;
+
+    private Instant legacyCutover;
+
+    @Autowired
+    private JwtKeyStore jwtKeyStore;
+
     private SecretKey key;
 
+    // Parser immuable et thread-safe, construit une seule fois
+    private JwtParser parser;
+
     @PostConstruct
     public void init() {
-        this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        if (StringUtils.hasText(jwtSecret)) {
+            this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        }
+
+        if (jwtKeyStore.isEnabled() && acceptLegacyHmac) {
+            if (key == null || !StringUtils.hasText(legacyHmacCutover)) {
+                throw new IllegalStateException(
+                        "jwt.accept-legacy-hmac nécessite jwt.secret et jwt.legacy-hmac-cutover");
+            }
+            this.legacyCutover = Instant.parse(legacyHmacCutover);
+        }
+
+        if (jwtKeyStore.isEnabled()) {
+            // Clé de vérification choisie d'après le kid du token, dans le cache du keystore
+            this.parser = Jwts.parser()
+                    .keyLocator(new LocatorAdapter<Key>() {
+                        @Override
+                        protected Key locate(JwsHeader header) {
+                            return locateVerificationKey(header);
+                        }
+                    })
+                    .build();
+        } else {
+            if (key == null) {
+                throw new IllegalStateException("jwt.secret ou jwt.keystore.path doit être configuré");
+            }
+            this.parser = Jwts.parser()
+                    .verifyWith(key)
+                    .build();
+        }
     }
 
     public String generateToken(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof User user) {
+            return generateToken(user);
+        }
+
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
-        return Jwts.builder()
+        return sign(Jwts.builder()
                 .subject(userDetails.getUsername())
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(key)
-                .compact();
+                .claim(CLAIM_ISSUED_AT_MILLIS, now.getTime())
+                .expiration(expiryDate));
     }
 
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Générer un token autoportant : id, rôle et version de token en plus de l'email
+     */
+    public String generateToken(User user) {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
-        return claims.getSubject();
+        return sign(Jwts.builder()
+                .subject(user.getEmail())
+                .claim(CLAIM_USER_ID, user.getId())
+                .claim(CLAIM_ROLE, user.getRole().name())
+                .claim(CLAIM_TOKEN_VERSION, user.getTokenVersion())
+                .issuedAt(now)
+                .claim(CLAIM_ISSUED_AT_MILLIS, now.getTime())
+                .expiration(expiryDate));
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Signer avec la clé privée du keystore (ES256 / EdDSA, header kid) ou, à défaut, en HMAC
+     */
+    private String sign(JwtBuilder builder) {
+        if (jwtKeyStore.isEnabled()) {
+            PrivateKey signingKey = jwtKeyStore.getSigningKey();
+            if (signingKey == null) {
+                throw new IllegalStateException("Ce nœud ne possède pas de clé de signature JWT");
+            }
+            return builder.header().keyId(jwtKeyStore.getSigningKeyId()).and()
+                    .signWith(signingKey)
+                    .compact();
+        }
+        return builder.signWith(key).compact();
+    }
+
+    private Key locateVerificationKey(JwsHeader header) {
+        String kid = header.getKeyId();
+        if (kid == null) {
+            if (acceptLegacyHmac && key != null) {
+                return key;
+            }
+            throw new InvalidKeyException("Token sans kid refusé");
+        }
+
+        Key verificationKey = jwtKeyStore.getVerificationKey(kid);
+        if (verificationKey == null) {
+            throw new InvalidKeyException("Clé de vérification inconnue: " + kid);
+        }
+        return verificationKey;
+    }
+
+    /**
+     * Vérifier le token une seule fois et retourner les claims ou la raison de l'échec
+     */
+    public TokenVerification verify(String token) {
+        if (token == null || token.isBlank()) {
+            return TokenVerification.failed(TokenVerification.Failure.EMPTY);
+        }
         try {
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            Jws<Claims> jws = parser.parseSignedClaims(token);
+            if (jwtKeyStore.isEnabled() && jws.getHeader().getKeyId() == null
+                    && !isAcceptedLegacyToken(jws.getPayload())) {
+                return TokenVerification.failed(TokenVerification.Failure.INVALID_SIGNATURE);
+            }
+            return TokenVerification.valid(jws.getPayload());
+        } catch (ExpiredJwtException e) {
+            return TokenVerification.failed(TokenVerification.Failure.EXPIRED);
+        } catch (SecurityException e) {
+            return TokenVerification.failed(TokenVerification.Failure.INVALID_SIGNATURE);
+        } catch (UnsupportedJwtException e) {
+            return TokenVerification.failed(TokenVerification.Failure.UNSUPPORTED);
         } catch (JwtException | IllegalArgumentException e) {
+            return TokenVerification.failed(TokenVerification.Failure.MALFORMED);
+        }
+    }
+
+    /**
+     * Token HMAC sans kid en mode keystore : accepté seulement s'il a été émis avant la date de passage
+     * et depuis moins de jwt.expiration (un token forgé avec l'ancien secret ne peut pas être daté après)
+     */
+    private boolean isAcceptedLegacyToken(Claims claims) {
+        Date issuedAt = claims.getIssuedAt();
+        if (legacyCutover == null || issuedAt == null) {
             return false;
         }
+        Instant issued = issuedAt.toInstant();
+        boolean accepted = issued.isBefore(legacyCutover)
+                && issued.isAfter(legacyCutover.minusMillis(jwtExpirationInMs))
+                && issued.isAfter(Instant.now().minusMillis(jwtExpirationInMs));
+        if (accepted) {
+            log.warn("Token HMAC hérité (sans kid) accepté pour {}, émis le {}", claims.getSubject(), issued);
+        } else {
+            log.warn("Token HMAC hérité (sans kid) refusé pour {}, émis le {}", claims.getSubject(), issued);
+        }
+        return accepted;
+    }
+
+    public String getUsernameFromToken(String token) {
+        TokenVerification verification = verify(token);
+        if (!verification.isValid()) {
+            throw new JwtException("Token invalide: " + verification.failure());
+        }
+        return verification.subject();
+    }
+
+    public boolean validateToken(String token) {
+        return verify(token).isValid();
     }
 }
@@ -0,0 +1,19 @@
+package com.s4p.entreprise.security;
+
+/**
+ * Levée quand le pool de vérification des mots de passe est saturé.
+ * Le client doit réessayer après retryAfterSeconds (HTTP 503 + Retry-After).
+ */
+public class LoginCapacityExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginCapacityExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
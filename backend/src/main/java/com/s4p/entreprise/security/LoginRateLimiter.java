@@ -0,0 +1,163 @@
+package com.s4p.entreprise.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limiteur de tentatives de login (token bucket) par email et par adresse IP.
+ * Appelé avant toute comparaison BCrypt : un refus coûte quelques microsecondes.
+ * Le bucket par IP protège contre le balayage de comptes ; il est partagé par tous les postes derrière
+ * un même NAT ou proxy, ses valeurs dépendent donc du déploiement (plus grand site derrière une IP).
+ * Les buckets sont répartis sur des segments verrouillés indépendamment, chacun borné
+ * en nombre d'entrées (les moins récemment utilisées sont oubliées).
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final int STRIPES = 64;
+
+    @Value("${security.login.rate-limit.email.capacity:5}")
+    private int emailCapacity;
+
+    @Value("${security.login.rate-limit.email.refill-per-minute:5}")
+    private double emailRefillPerMinute;
+
+    @Value("${security.login.rate-limit.ip.capacity:300}")
+    private int ipCapacity;
+
+    @Value("${security.login.rate-limit.ip.refill-per-minute:600}")
+    private double ipRefillPerMinute;
+
+    @Value("${security.login.rate-limit.max-entries:100000}")
+    private int maxEntries;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Stripe[] stripes;
+
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        int maxEntriesPerStripe = Math.max(1, maxEntries / STRIPES);
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(maxEntriesPerStripe);
+        }
+        this.rejectedCounter = Counter.builder("security.login.throttled")
+                .description("Tentatives de login refusées par le limiteur")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Consommer un jeton pour l'email puis pour l'IP, ou lever TooManyLoginAttemptsException.
+     * Une tentative refusée ne consomme rien : un email bloqué n'entame pas le bucket de l'IP
+     * (collègues derrière le même NAT), et le jeton de l'email est rendu si l'IP refuse.
+     */
+    public void checkLoginAttempt(String email, String clientIp) {
+        String emailKey = email != null ? "email:" + email.trim().toLowerCase(Locale.ROOT) : null;
+        if (emailKey != null) {
+            acquire(emailKey, emailCapacity, emailRefillPerMinute);
+        }
+        if (clientIp != null) {
+            try {
+                acquire("ip:" + clientIp, ipCapacity, ipRefillPerMinute);
+            } catch (TooManyLoginAttemptsException e) {
+                if (emailKey != null) {
+                    stripeFor(emailKey).refund(emailKey, emailCapacity);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void acquire(String key, int capacity, double refillPerMinute) {
+        long waitNanos = stripeFor(key).tryAcquire(key, capacity, refillPerMinute / TimeUnit.MINUTES.toNanos(1), System.nanoTime());
+        if (waitNanos > 0) {
+            rejectedCounter.increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+            throw new TooManyLoginAttemptsException("Trop de tentatives de connexion, réessayez plus tard", retryAfterSeconds);
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Bucket> buckets;
+
+        Stripe(int maxEntries) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        /**
+         * Retourne 0 si un jeton a été consommé, sinon le temps d'attente en nanosecondes
+         */
+        long tryAcquire(String key, int capacity, double tokensPerNano, long now) {
+            lock.lock();
+            try {
+                Bucket bucket = buckets.get(key);
+                if (bucket == null) {
+                    bucket = new Bucket(capacity, now);
+                    buckets.put(key, bucket);
+                }
+
+                bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.refilledAt) * tokensPerNano);
+                bucket.refilledAt = now;
+
+                if (bucket.tokens >= 1) {
+                    bucket.tokens -= 1;
+                    return 0;
+                }
+                return (long) Math.ceil((1 - bucket.tokens) / tokensPerNano);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Rendre un jeton consommé par une tentative finalement refusée ailleurs
+         */
+        void refund(String key, int capacity) {
+            lock.lock();
+            try {
+                Bucket bucket = buckets.get(key);
+                if (bucket != null) {
+                    bucket.tokens = Math.min(capacity, bucket.tokens + 1);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Bucket {
+        double tokens;
+        long refilledAt;
+
+        Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.s4p.entreprise.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool dédié et borné pour les calculs BCrypt du login.
+ * Les threads Tomcat ne font plus que patienter : une vague de connexions ne peut
+ * plus consommer tout le CPU, et au-delà de la file d'attente la requête est refusée tout de suite.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    // 0 = automatique (moitié des coeurs disponibles)
+    @Value("${security.login.pool-size:0}")
+    private int poolSize;
+
+    @Value("${security.login.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${security.login.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Value("${security.login.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer hashTimer;
+    private Timer queueWaitTimer;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        if (poolSize <= 0) {
+            poolSize = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.hashTimer = Timer.builder("security.login.hash")
+                .description("Durée de vérification du mot de passe sur le pool dédié")
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("security.login.queue.wait")
+                .description("Temps d'attente dans la file avant vérification")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("security.login.rejected")
+                .description("Logins refusés car le pool est saturé")
+                .register(meterRegistry);
+        Gauge.builder("security.login.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("security.login.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Exécuter la vérification sur le pool et attendre son résultat.
+     * Les exceptions de la tâche (ex: BadCredentialsException) sont relancées telles quelles.
+     */
+    public <T> T execute(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueWaitTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return task.call();
+                } finally {
+                    hashTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new LoginCapacityExceededException("Trop de connexions simultanées, réessayez plus tard", retryAfterSeconds);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new LoginCapacityExceededException("Délai de vérification dépassé, réessayez plus tard", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Vérification du mot de passe interrompue", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Erreur lors de la vérification du mot de passe", cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,103 @@
+package com.s4p.entreprise.security;
+
+import com.s4p.entreprise.service.TransactionHooks;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Liste de révocation des tokens JWT, par utilisateur (subject).
+ * Révoquer un utilisateur invalide tous les tokens émis jusqu'à cet instant.
+ * Le filtre de Bloom répond au cas courant « non révoqué » sans verrou ;
+ * seuls ses positifs sont confirmés dans l'ensemble exact.
+ * Une entrée est purgée une fois que les tokens qu'elle visait ont de toute façon expiré.
+ * Limite : liste propre au nœud, en mémoire seulement (perdue au redémarrage, non partagée entre nœuds).
+ * La révocation durable et commune à tous les nœuds est la version de token (claim "ver", comparée
+ * à users.token_version par TokenVersionRegistry) ; cette liste ne couvre en plus que les anciens tokens sans "ver".
+ */
+@Component
+public class TokenRevocationList {
+
+    @Value("${jwt.expiration}")
+    private long jwtExpirationInMs;
+
+    @Value("${security.revocation.expected-entries:10000}")
+    private int expectedEntries;
+
+    @Value("${security.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private final Map<String, Revocation> revocations = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter bloomFilter;
+
+    @PostConstruct
+    public void init() {
+        this.bloomFilter = newBloomFilter();
+    }
+
+    /**
+     * Révoquer tous les tokens émis pour cet utilisateur jusqu'au commit de la transaction courante
+     * (rien n'est révoqué si elle est annulée)
+     */
+    public void revokeUser(String subject) {
+        TransactionHooks.afterCommit(() -> {
+            long now = System.currentTimeMillis();
+            revocations.put(subject, new Revocation(now, now + jwtExpirationInMs));
+            bloomFilter.put(subject);
+        });
+    }
+
+    public boolean isRevoked(Claims claims) {
+        String subject = claims.getSubject();
+        if (subject == null || !bloomFilter.mightContain(subject)) {
+            return false;
+        }
+
+        Revocation revocation = revocations.get(subject);
+        if (revocation == null) {
+            return false;
+        }
+        // iat n'a qu'une précision à la seconde : la claim en millisecondes permet à un utilisateur réactivé
+        // de se reconnecter dans la même seconde ; sans elle, toute la seconde de la révocation est refusée
+        Long issuedAtMillis = claims.get(JwtTokenProvider.CLAIM_ISSUED_AT_MILLIS, Long.class);
+        if (issuedAtMillis != null) {
+            return issuedAtMillis <= revocation.revokedAtMillis;
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt == null || issuedAt.getTime() / 1000 <= revocation.revokedAtMillis / 1000;
+    }
+
+    public int size() {
+        return revocations.size();
+    }
+
+    /**
+     * Purger les révocations expirées et reconstruire le filtre de Bloom
+     */
+    @Scheduled(fixedDelayString = "${security.revocation.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        boolean removed = revocations.values().removeIf(revocation -> revocation.expiresAt <= now);
+        if (removed) {
+            BloomFilter rebuilt = newBloomFilter();
+            revocations.keySet().forEach(rebuilt::put);
+            this.bloomFilter = rebuilt;
+            // Une révocation ajoutée pendant la reconstruction doit rester visible
+            revocations.keySet().forEach(rebuilt::put);
+        }
+    }
+
+    private BloomFilter newBloomFilter() {
+        return new BloomFilter(Math.max(expectedEntries, revocations.size() * 2), falsePositiveRate);
+    }
+
+    private record Revocation(long revokedAtMillis, long expiresAt) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.s4p.entreprise.security;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Résultat de la vérification d'un token JWT : soit les claims, soit la raison de l'échec
+ */
+public record TokenVerification(Claims claims, Failure failure) {
+
+    public enum Failure {
+        EMPTY,              // Token absent ou vide
+        EXPIRED,            // Token expiré
+        INVALID_SIGNATURE,  // Signature invalide
+        MALFORMED,          // Token mal formé
+        UNSUPPORTED         // Token non supporté (ex: non signé)
+    }
+
+    public static TokenVerification valid(Claims claims) {
+        return new TokenVerification(claims, null);
+    }
+
+    public static TokenVerification failed(Failure failure) {
+        return new TokenVerification(null, failure);
+    }
+
+    public boolean isValid() {
+        return failure == null;
+    }
+
+    public String subject() {
+        return claims != null ? claims.getSubject() : null;
+    }
+}
@@ -0,0 +1,132 @@
+package com.s4p.entreprise.security;
+
+import com.s4p.entreprise.repository.UserRepository;
+import com.s4p.entreprise.service.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Table en mémoire des versions de token par utilisateur (copie de users.token_version).
+ * Un token dont la claim "ver" ne correspond plus à la version courante est refusé.
+ * Chargée depuis la base au premier accès, tenue à jour par UserService sur ce nœud et rechargée
+ * entièrement toutes les security.token-version.refresh-ms : une désactivation ou un reset fait sur
+ * un autre nœud est vu au plus tard au rechargement suivant. Un utilisateur absent de la table ou un token
+ * plus récent que la version connue est vérifié en base avant d'être refusé (utilisateur créé ailleurs).
+ */
+@Component
+public class TokenVersionRegistry {
+
+    @Autowired
+    @Lazy
+    private UserRepository userRepository;
+
+    private volatile Map<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    // Utilisateurs dont la base a confirmé l'absence : pas de requête par appel jusqu'au prochain rechargement
+    private volatile Set<Long> unknown = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean loaded = false;
+
+    // Pas de synchronized autour de la requête de chargement (threads virtuels)
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    /**
+     * Vérifier qu'un token porte la version courante de l'utilisateur.
+     * Un utilisateur inconnu de la base (supprimé) n'a plus aucun token valide.
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        ensureLoaded();
+        Integer current = versions.get(userId);
+        if (current != null && current >= tokenVersion) {
+            return current == tokenVersion;
+        }
+        // Absent ou plus ancien que le token : la table locale est en retard, la base tranche
+        return lookup(userId).map(version -> version == tokenVersion).orElse(false);
+    }
+
+    public int currentVersion(Long userId) {
+        ensureLoaded();
+        Integer current = versions.get(userId);
+        return current != null ? current : lookup(userId).orElse(0);
+    }
+
+    /**
+     * Publier la nouvelle version d'un utilisateur, après le commit s'il y a une transaction en cours
+     */
+    public void publish(Long userId, int tokenVersion) {
+        TransactionHooks.afterCommit(() -> {
+            versions.merge(userId, tokenVersion, Math::max);
+            unknown.remove(userId);
+        });
+    }
+
+    /**
+     * Retirer un utilisateur supprimé : tous ses tokens deviennent invalides
+     */
+    public void remove(Long userId) {
+        TransactionHooks.afterCommit(() -> {
+            versions.remove(userId);
+            unknown.add(userId);
+        });
+    }
+
+    /**
+     * Recharger toute la table depuis la base (changements faits par les autres nœuds ou hors application).
+     * Les versions ne font que croître : une version publiée pendant le rechargement n'est pas écrasée.
+     */
+    @Scheduled(initialDelayString = "${security.token-version.refresh-ms:30000}",
+            fixedDelayString = "${security.token-version.refresh-ms:30000}")
+    public void refresh() {
+        loadLock.lock();
+        try {
+            Map<Long, Integer> current = versions;
+            Map<Long, Integer> reloaded = new ConcurrentHashMap<>();
+            for (Object[] row : userRepository.findAllTokenVersions()) {
+                Long userId = (Long) row[0];
+                Integer version = (Integer) row[1];
+                Integer known = current.get(userId);
+                reloaded.put(userId, known != null ? Math.max(known, version) : version);
+            }
+            this.versions = reloaded;
+            this.unknown = ConcurrentHashMap.newKeySet();
+            this.loaded = true;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private Optional<Integer> lookup(Long userId) {
+        if (unknown.contains(userId)) {
+            return Optional.empty();
+        }
+        Optional<Integer> version = userRepository.findTokenVersionById(userId);
+        if (version.isPresent()) {
+            versions.merge(userId, version.get(), Math::max);
+        } else {
+            unknown.add(userId);
+        }
+        return version;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loadLock.lock();
+        try {
+            if (!loaded) {
+                refresh();
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+}
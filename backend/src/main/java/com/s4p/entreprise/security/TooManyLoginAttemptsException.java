@@ -0,0 +1,18 @@
+package com.s4p.entreprise.security;
+
+/**
+ * Levée quand un email ou une adresse IP dépasse son quota de tentatives de login (HTTP 429)
+ */
+public class TooManyLoginAttemptsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyLoginAttemptsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,145 @@
+package com.s4p.entreprise.security;
+
+import com.s4p.entreprise.service.TransactionHooks;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache en mémoire des UserDetails utilisés par le filtre JWT.
+ * Borné en taille, avec une durée de vie (TTL) par entrée.
+ * Les entrées ne contiennent jamais le mot de passe : le login passe toujours par la base.
+ */
+@Component
+public class UserDetailsCache implements MeterBinder {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Value("${security.user-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${security.user-cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    /**
+     * Obtenir les UserDetails depuis le cache, ou les charger via le loader en cas d'absence
+     */
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(email);
+        if (entry != null && entry.expiresAt > now) {
+            hits.increment();
+            return entry.userDetails;
+        }
+
+        misses.increment();
+        UserDetails snapshot = snapshot(loader.apply(email));
+        if (entries.size() >= maxSize) {
+            makeRoom(now);
+        }
+        entries.put(email, new Entry(snapshot, now + ttlMs));
+        return snapshot;
+    }
+
+    /**
+     * Retirer un utilisateur du cache (à appeler après chaque modification)
+     */
+    public void evict(String email) {
+        if (email != null && entries.remove(email) != null) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Retirer un utilisateur du cache une fois la transaction courante commitée : un retrait avant commit
+     * laisserait une requête concurrente recharger l'ancien état et le garder pendant tout le TTL
+     */
+    public void evictAfterCommit(String email) {
+        TransactionHooks.afterCommit(() -> evict(email));
+    }
+
+    public void clear() {
+        evictions.add(entries.size());
+        entries.clear();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("security.user.cache.requests", this, UserDetailsCache::getHitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("security.user.cache.requests", this, UserDetailsCache::getMissCount)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("security.user.cache.evictions", this, UserDetailsCache::getEvictionCount)
+                .register(registry);
+        Gauge.builder("security.user.cache.size", this, UserDetailsCache::size)
+                .register(registry);
+    }
+
+    /**
+     * Libérer de la place : d'abord les entrées expirées, sinon la plus ancienne
+     */
+    private void makeRoom(long now) {
+        entries.entrySet().removeIf(e -> {
+            if (e.getValue().expiresAt <= now) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        });
+
+        if (entries.size() >= maxSize) {
+            entries.entrySet().stream()
+                    .min((a, b) -> Long.compare(a.getValue().expiresAt, b.getValue().expiresAt))
+                    .ifPresent(oldest -> evict(oldest.getKey()));
+        }
+    }
+
+    /**
+     * Copie immuable et sans mot de passe, pour ne pas garder d'entité JPA détachée en cache
+     */
+    private UserDetails snapshot(UserDetails userDetails) {
+        return User.withUsername(userDetails.getUsername())
+                .password("")
+                .authorities(userDetails.getAuthorities())
+                .disabled(!userDetails.isEnabled())
+                .accountExpired(!userDetails.isAccountNonExpired())
+                .accountLocked(!userDetails.isAccountNonLocked())
+                .credentialsExpired(!userDetails.isCredentialsNonExpired())
+                .build();
+    }
+
+    private record Entry(UserDetails userDetails, long expiresAt) {
+    }
+}
@@ -0,0 +1,350 @@
+package com.s4p.entreprise.service;
+
+import com.s4p.entreprise.dto.CheckAcknowledgementDTO;
+import com.s4p.entreprise.dto.CheckAcknowledgementDTO.Type;
+import com.s4p.entreprise.dto.UserDTO;
+import com.s4p.entreprise.repository.AttendanceCalendarRepository.Day;
+import com.s4p.entreprise.repository.AttendanceCheckRepository.Check;
+import com.s4p.entreprise.repository.AttendanceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ingestion différée des pointages (attendance.ingestion.enabled) : chaque check-in / check-out
+ * est accepté dans une file bornée et acquitté tout de suite avec l'heure enregistrée ; un thread
+ * unique vide la file par lots (batch-size événements ou flush-interval-ms) en deux requêtes par lot.
+ * File pleine : refus immédiat (503 + Retry-After). Arrêt propre : la file est entièrement vidée en base
+ * après l'arrêt du serveur web, avant la fermeture du pool JDBC.
+ * Une erreur d'écriture n'arrête jamais le thread : le lot est retenté puis abandonné, et les lots suivants
+ * attendent de plus en plus longtemps (jusqu'à MAX_BACKOFF_MS) tant que la base échoue. L'état est exposé
+ * dans /actuator/health (DOWN si le thread est mort ou si le dernier lot a échoué).
+ */
+@Component
+public class AttendanceIngestionQueue implements SmartLifecycle, HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceIngestionQueue.class);
+
+    private static final int MAX_FLUSH_ATTEMPTS = 3;
+
+    private static final long MAX_BACKOFF_MS = 5_000;
+
+    // Un échec plus ancien, sans lot écrit depuis (file vide), ne rend plus le composant DOWN
+    private static final long FAILURE_HEALTH_WINDOW_MS = 60_000;
+
+    @Value("${attendance.ingestion.enabled:false}")
+    private boolean enabled;
+
+    @Value("${attendance.ingestion.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${attendance.ingestion.batch-size:500}")
+    private int batchSize;
+
+    @Value("${attendance.ingestion.flush-interval-ms:20}")
+    private long flushIntervalMs;
+
+    @Value("${attendance.ingestion.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private PresenceCalendar presenceCalendar;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private BlockingQueue<Event> queue;
+    private volatile boolean running = false;
+    private Thread flusher;
+
+    private Counter rejectedCounter;
+    private Counter droppedCounter;
+    private Counter unmatchedCheckOutCounter;
+    private Counter failedFlushCounter;
+    private Timer flushTimer;
+
+    // Lots abandonnés d'affilée (remis à zéro au premier lot écrit)
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long lastFailureAt;
+    private volatile String lastFailure;
+
+    private record Event(Type type, Check check) {
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.rejectedCounter = Counter.builder("attendance.ingestion.rejected")
+                .description("Pointages refusés car la file est pleine")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("attendance.ingestion.dropped")
+                .description("Pointages perdus après échec répété de l'écriture en base")
+                .register(meterRegistry);
+        this.unmatchedCheckOutCounter = Counter.builder("attendance.ingestion.unmatched-check-out")
+                .description("Check-out sans pointage d'arrivée le même jour")
+                .register(meterRegistry);
+        this.failedFlushCounter = Counter.builder("attendance.ingestion.flush.failures")
+                .description("Lots abandonnés après échec répété de l'écriture en base")
+                .register(meterRegistry);
+        Gauge.builder("attendance.ingestion.flush.consecutive-failures", consecutiveFailures, AtomicInteger::get)
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("attendance.ingestion.flush")
+                .description("Durée d'écriture d'un lot de pointages")
+                .register(meterRegistry);
+        Gauge.builder("attendance.ingestion.queue.depth", queue, BlockingQueue::size)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enregistrer un pointage d'arrivée (écrit en base au prochain lot)
+     */
+    public CheckAcknowledgementDTO checkIn(Long userId) {
+        return acknowledgement(findUser(userId), submit(Type.CHECK_IN, userId), Type.CHECK_IN);
+    }
+
+    /**
+     * Enregistrer un pointage de départ (écrit en base au prochain lot)
+     */
+    public CheckAcknowledgementDTO checkOut(Long userId) {
+        return acknowledgement(findUser(userId), submit(Type.CHECK_OUT, userId), Type.CHECK_OUT);
+    }
+
+    // Validation sur l'annuaire en mémoire : aucune requête SQL avant l'acquittement
+    private UserDTO findUser(Long userId) {
+        return userDirectory.snapshot().byId(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    private Check submit(Type type, Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        Check check = new Check(userId, now.toLocalDate(), now.toLocalTime(), now);
+        if (!running || !queue.offer(new Event(type, check))) {
+            rejectedCounter.increment();
+            throw new IngestionCapacityExceededException("Trop de pointages simultanés, réessayez plus tard", retryAfterSeconds);
+        }
+        return check;
+    }
+
+    // Ce qui a été reçu, pas la ligne de pointage (statut, arrivée, id) : elle n'est connue qu'après le lot
+    private static CheckAcknowledgementDTO acknowledgement(UserDTO user, Check check, Type type) {
+        return new CheckAcknowledgementDTO(check.userId(), user.getFirstName() + " " + user.getLastName(),
+                check.date(), check.time(), type);
+    }
+
+    // ========================================
+    // ÉCRITURE PAR LOTS
+    // ========================================
+
+    private void drainLoop() {
+        List<Event> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Event first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Compléter le lot jusqu'à batchSize ou jusqu'à la fin de l'intervalle
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Event next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                if (!flush(batch)) {
+                    backOff();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Dernier filet : le thread d'écriture ne doit jamais mourir
+                recordFailure(batch.size(), e);
+                backOff();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Écrire un lot (avec reprises). Retourne false si le lot a été abandonné.
+     */
+    private boolean flush(List<Event> batch) {
+        // Un seul pointage par (utilisateur, jour) et par type dans une requête : le dernier reçu l'emporte
+        Map<List<Object>, Check> checkIns = new LinkedHashMap<>();
+        Map<List<Object>, Check> checkOuts = new LinkedHashMap<>();
+        for (Event event : batch) {
+            Check check = event.check();
+            (event.type() == Type.CHECK_IN ? checkIns : checkOuts).put(List.of(check.userId(), check.date()), check);
+        }
+        List<Check> ins = List.copyOf(checkIns.values());
+        List<Check> outs = List.copyOf(checkOuts.values());
+
+        for (int attempt = 1; attempt <= MAX_FLUSH_ATTEMPTS; attempt++) {
+            try {
+                // Arrivées d'abord : un check-out reçu dans le même lot trouve la ligne
+                int matched = flushTimer.record(() -> transactionTemplate.execute(status -> {
+                    attendanceRepository.upsertCheckIns(ins);
+                    presenceCalendar.refreshAfterCommit(ins.stream()
+                            .map(check -> new Day(check.userId(), check.date()))
+                            .toList());
+                    return attendanceRepository.updateCheckOuts(outs);
+                }));
+                if (matched < outs.size()) {
+                    unmatchedCheckOutCounter.increment(outs.size() - matched);
+                    log.warn("Ingestion pointages : {} check-out sans pointage d'arrivée ignorés", outs.size() - matched);
+                }
+                consecutiveFailures.set(0);
+                return true;
+            } catch (RuntimeException e) {
+                // DataAccessException, mais aussi CannotCreateTransactionException / TransactionSystemException
+                log.warn("Ingestion pointages : échec d'écriture d'un lot de {} (tentative {}/{})",
+                        batch.size(), attempt, MAX_FLUSH_ATTEMPTS, e);
+                try {
+                    Thread.sleep(100L * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                lastFailure = e.getClass().getSimpleName() + ": " + e.getMessage();
+            }
+        }
+        recordFailure(batch.size(), null);
+        log.error("Ingestion pointages : {} pointages perdus ({} arrivées, {} départs)", batch.size(), ins.size(), outs.size());
+        return false;
+    }
+
+    private void recordFailure(int lost, RuntimeException e) {
+        if (e != null) {
+            lastFailure = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error("Ingestion pointages : erreur inattendue, {} pointages perdus", lost, e);
+        }
+        lastFailureAt = System.currentTimeMillis();
+        consecutiveFailures.incrementAndGet();
+        failedFlushCounter.increment();
+        droppedCounter.increment(lost);
+    }
+
+    // Attente croissante tant que les lots échouent : la base n'est pas sollicitée en boucle
+    private void backOff() {
+        int failures = Math.min(consecutiveFailures.get(), 10);
+        try {
+            Thread.sleep(Math.min(MAX_BACKOFF_MS, 100L << failures));
+        } catch (InterruptedException e) {
+            // Le poll suivant lèvera l'interruption et terminera la boucle
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public Health health() {
+        if (!enabled) {
+            return Health.up().withDetail("enabled", false).build();
+        }
+        boolean flusherAlive = flusher != null && flusher.isAlive();
+        int failures = consecutiveFailures.get();
+        boolean failing = failures > 0 && System.currentTimeMillis() - lastFailureAt < FAILURE_HEALTH_WINDOW_MS;
+        Health.Builder builder = running && (!flusherAlive || failing) ? Health.down() : Health.up();
+        builder.withDetail("flusherAlive", flusherAlive)
+                .withDetail("queueDepth", queue.size())
+                .withDetail("consecutiveFailedBatches", failures);
+        if (lastFailureAt > 0) {
+            builder.withDetail("lastFailureAt", Instant.ofEpochMilli(lastFailureAt).toString())
+                    .withDetail("lastFailure", String.valueOf(lastFailure));
+        }
+        return builder.build();
+    }
+
+    // ========================================
+    // CYCLE DE VIE
+    // ========================================
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::drainLoop, "attendance-ingestion");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Ingestion différée des pointages active (file {}, lots de {}, {} ms)", queueCapacity, batchSize, flushIntervalMs);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Événements acceptés pendant l'arrêt du thread
+        List<Event> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+        log.info("Ingestion différée des pointages arrêtée, file vidée");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Arrêté après le serveur web (plus aucune requête en cours) et avant la fermeture des pools
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -0,0 +1,200 @@
+package com.s4p.entreprise.service;
+
+import com.s4p.entreprise.dto.AttendanceStatsDTO;
+import com.s4p.entreprise.dto.UserDTO;
+import com.s4p.entreprise.model.Attendance;
+import com.s4p.entreprise.repository.AttendanceCalendarRepository.DayStatusHandler;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
+
+/**
+ * Agrégats de présence par département, par jour et par mois (nombre de pointages par statut).
+ * Dérivés du calendrier de présence : chaque changement de statut d'un jour (création, modification,
+ * suppression, check-in ; un check-out ne change pas le statut) retire une unité à l'ancien statut et
+ * en ajoute une au nouveau. Une lecture ne dépend que du nombre de départements, pas de l'historique.
+ * Un jour est compté dans le département de l'utilisateur au jour près : un changement de département
+ * prend effet le lendemain du dernier jour déjà compté pour lui, si bien qu'un retrait (modification,
+ * suppression) touche toujours le département où le jour a été ajouté. Une reconstruction réattribue
+ * tout l'historique au département courant.
+ */
+@Component
+public class AttendanceRollups implements PresenceCalendar.Listener {
+
+    private static final Attendance.AttendanceStatus[] STATUSES = Attendance.AttendanceStatus.values();
+
+    private static final String NO_DEPARTMENT = "";
+
+    @Autowired
+    private PresenceCalendar presenceCalendar;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    private volatile Rollups rollups = new Rollups();
+
+    @PostConstruct
+    public void init() {
+        presenceCalendar.addListener(this);
+    }
+
+    @Override
+    public void onTransition(long userId, LocalDate date, Attendance.AttendanceStatus before,
+                             Attendance.AttendanceStatus after) {
+        // Appelé sous le verrou du jour (PresenceCalendar) : les changements d'un même jour sont séquentiels
+        Rollups current = rollups;
+        if (before != null) {
+            DepartmentHistory history = current.departments.get(userId);
+            String department = history != null
+                    ? history.departmentOn(date)
+                    : departmentOf(userDirectory.snapshot(), userId);
+            current.add(department, date, before, -1);
+        }
+        if (after != null) {
+            current.count(userId, date, departmentOf(userDirectory.snapshot(), userId), after);
+        }
+    }
+
+    @Override
+    public void onRebuild(Consumer<DayStatusHandler> days) {
+        Rollups rebuilt = new Rollups();
+        UserDirectory.Snapshot snapshot = userDirectory.snapshot();
+        days.accept((userId, date, status) -> rebuilt.count(userId, date, departmentOf(snapshot, userId), status));
+        this.rollups = rebuilt;
+    }
+
+    /**
+     * Recharger le calendrier de présence depuis la base et recalculer tous les agrégats.
+     * Retourne le nombre de pointages lus.
+     */
+    public int rebuild() {
+        return presenceCalendar.rebuild();
+    }
+
+    public AttendanceStatsDTO daily(LocalDate date, String department) {
+        presenceCalendar.checkCovered(date);
+        return stats(date.toString(), rollups.daily.get(date), department);
+    }
+
+    public AttendanceStatsDTO monthly(YearMonth month, String department) {
+        presenceCalendar.checkCovered(month.atDay(1));
+        return stats(month.toString(), rollups.monthly.get(month), department);
+    }
+
+    private static AttendanceStatsDTO stats(String period, Map<String, AtomicIntegerArray> byDepartment,
+                                            String department) {
+        Map<String, Map<Attendance.AttendanceStatus, Integer>> departments = new TreeMap<>();
+        Map<Attendance.AttendanceStatus, Integer> total = emptyCounts();
+        if (byDepartment != null) {
+            byDepartment.forEach((name, counters) -> {
+                if (department != null && !department.isBlank() && !department.equalsIgnoreCase(name)) {
+                    return;
+                }
+                Map<Attendance.AttendanceStatus, Integer> counts = emptyCounts();
+                for (Attendance.AttendanceStatus status : STATUSES) {
+                    int count = counters.get(status.ordinal());
+                    counts.put(status, count);
+                    total.merge(status, count, Integer::sum);
+                }
+                departments.put(name, counts);
+            });
+        }
+        return new AttendanceStatsDTO(period, departments, total);
+    }
+
+    private static Map<Attendance.AttendanceStatus, Integer> emptyCounts() {
+        Map<Attendance.AttendanceStatus, Integer> counts = new EnumMap<>(Attendance.AttendanceStatus.class);
+        for (Attendance.AttendanceStatus status : STATUSES) {
+            counts.put(status, 0);
+        }
+        return counts;
+    }
+
+    private static String departmentOf(UserDirectory.Snapshot snapshot, long userId) {
+        return snapshot.byId(userId)
+                .map(UserDTO::getDepartment)
+                .orElse(NO_DEPARTMENT);
+    }
+
+    /**
+     * Compteurs par période puis par département, un compteur atomique par statut,
+     * et historique des départements de chaque utilisateur compté
+     */
+    private static final class Rollups {
+
+        private final Map<LocalDate, Map<String, AtomicIntegerArray>> daily = new ConcurrentHashMap<>();
+        private final Map<YearMonth, Map<String, AtomicIntegerArray>> monthly = new ConcurrentHashMap<>();
+        private final Map<Long, DepartmentHistory> departments = new ConcurrentHashMap<>();
+
+        void count(long userId, LocalDate date, String currentDepartment, Attendance.AttendanceStatus status) {
+            String department = departments.computeIfAbsent(userId, k -> new DepartmentHistory(currentDepartment))
+                    .count(date, currentDepartment);
+            add(department, date, status, 1);
+        }
+
+        void add(String department, LocalDate date, Attendance.AttendanceStatus status, int delta) {
+            counters(daily, date, department).addAndGet(status.ordinal(), delta);
+            counters(monthly, YearMonth.from(date), department).addAndGet(status.ordinal(), delta);
+        }
+
+        private static <K> AtomicIntegerArray counters(Map<K, Map<String, AtomicIntegerArray>> periods,
+                                                       K period, String department) {
+            return periods.computeIfAbsent(period, k -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(department, k -> new AtomicIntegerArray(STATUSES.length));
+        }
+    }
+
+    /**
+     * Départements successifs d'un utilisateur, chacun avec le premier jour qu'il couvre (quelques entrées
+     * par utilisateur, pas une par jour). Un nouveau département est ajouté quand l'annuaire en donne un autre
+     * au moment de compter un jour ; il ne couvre que les jours postérieurs au dernier jour déjà compté,
+     * le département d'un jour compté ne change donc jamais.
+     */
+    private static final class DepartmentHistory {
+
+        private final List<LocalDate> effectiveFrom = new ArrayList<>(2);
+        private final List<String> names = new ArrayList<>(2);
+        private LocalDate lastCounted = LocalDate.MIN;
+
+        DepartmentHistory(String department) {
+            effectiveFrom.add(LocalDate.MIN);
+            names.add(department);
+        }
+
+        synchronized String count(LocalDate date, String currentDepartment) {
+            int last = names.size() - 1;
+            if (!names.get(last).equals(currentDepartment)) {
+                if (last > 0 && effectiveFrom.get(last).isAfter(lastCounted)) {
+                    // Aucun jour compté dans le dernier département : il est simplement remplacé
+                    names.set(last, currentDepartment);
+                } else {
+                    effectiveFrom.add(lastCounted.plusDays(1));
+                    names.add(currentDepartment);
+                }
+            }
+            if (date.isAfter(lastCounted)) {
+                lastCounted = date;
+            }
+            return departmentOn(date);
+        }
+
+        synchronized String departmentOn(LocalDate date) {
+            int i = names.size() - 1;
+            while (i > 0 && effectiveFrom.get(i).isAfter(date)) {
+                i--;
+            }
+            return names.get(i);
+        }
+    }
+}
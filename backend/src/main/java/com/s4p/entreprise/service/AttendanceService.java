@@ -1,6 +1,10 @@
 package com.s4p.entreprise.service;
 
 import com.s4p.entreprise.dto.AttendanceDTO;
+import com.s4p.entreprise.dto.AttendanceMatrixDTO;
+import com.s4p.entreprise.dto.AttendanceStatsDTO;
+import com.s4p.entreprise.dto.PresenceHeatmapDTO;
+import com.s4p.entreprise.dto.UserDTO;
 import com.s4p.entreprise.model.Attendance;
 import com.s4p.entreprise.model.User;
 import com.s4p.entreprise.repository.AttendanceRepository;
@@ -11,38 +15,180 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class AttendanceService {
 
+    // Fenêtre maximale du planning : borne la taille de la réponse
+    private static final int MAX_MATRIX_DAYS = 92;
+
+    // Compteurs et carte de présence servis par le calendrier en mémoire : une année au plus
+    private static final int MAX_CALENDAR_DAYS = 366;
+
+    // Statuts comptés comme présence par défaut sur la carte (sur site ou à distance)
+    private static final Set<Attendance.AttendanceStatus> PRESENCE_STATUSES = EnumSet.of(
+            Attendance.AttendanceStatus.PRESENT, Attendance.AttendanceStatus.LATE,
+            Attendance.AttendanceStatus.HALF_DAY, Attendance.AttendanceStatus.REMOTE);
+
     @Autowired
     private AttendanceRepository attendanceRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private PresenceCalendar presenceCalendar;
+
+    @Autowired
+    private AttendanceRollups attendanceRollups;
+
+    @Transactional(readOnly = true)
     public List<AttendanceDTO> getAllAttendances() {
-        return attendanceRepository.findAll().stream()
-                .map(AttendanceDTO::fromAttendance)
-                .collect(Collectors.toList());
+        return attendanceRepository.findAllDTOs();
     }
 
+    @Transactional(readOnly = true)
     public List<AttendanceDTO> getAttendancesByUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return attendanceRepository.findByUser(user).stream()
-                .map(AttendanceDTO::fromAttendance)
-                .collect(Collectors.toList());
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        return attendanceRepository.findDTOsByUserId(userId);
     }
 
+    @Transactional(readOnly = true)
     public List<AttendanceDTO> getAttendancesByDateRange(Long userId, LocalDate startDate, LocalDate endDate) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return attendanceRepository.findByUserAndDateBetween(user, startDate, endDate).stream()
-                .map(AttendanceDTO::fromAttendance)
-                .collect(Collectors.toList());
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        return attendanceRepository.findDTOsByUserIdAndDateBetween(userId, startDate, endDate);
+    }
+
+    /**
+     * Planning utilisateurs actifs × jours sur [from, to] : une requête sur la période, utilisateurs depuis l'annuaire
+     */
+    @Transactional(readOnly = true)
+    public AttendanceMatrixDTO getAttendanceMatrix(LocalDate from, LocalDate to, String department) {
+        int days = periodLength(from, to, MAX_MATRIX_DAYS);
+        List<UserDTO> users = activeUsers(department);
+
+        Map<Long, Integer> rowByUser = new HashMap<>();
+        char[][] statuses = new char[users.size()][days];
+        long[][] ids = new long[users.size()][days];
+        int[][] checkIns = new int[users.size()][days];
+        int[][] checkOuts = new int[users.size()][days];
+        for (int i = 0; i < users.size(); i++) {
+            rowByUser.put(users.get(i).getId(), i);
+            Arrays.fill(statuses[i], AttendanceMatrixDTO.NONE);
+            Arrays.fill(checkIns[i], -1);
+            Arrays.fill(checkOuts[i], -1);
+        }
+
+        for (AttendanceDTO attendance : attendanceRepository.findDTOsByDateBetween(from, to)) {
+            Integer row = rowByUser.get(attendance.getUserId());
+            if (row == null) {
+                continue; // Utilisateur inactif ou hors département
+            }
+            int day = (int) ChronoUnit.DAYS.between(from, attendance.getDate());
+            statuses[row][day] = AttendanceMatrixDTO.code(attendance.getStatus());
+            ids[row][day] = attendance.getId();
+            checkIns[row][day] = minuteOfDay(attendance.getCheckIn());
+            checkOuts[row][day] = minuteOfDay(attendance.getCheckOut());
+        }
+
+        List<AttendanceMatrixDTO.Row> rows = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            UserDTO user = users.get(i);
+            rows.add(new AttendanceMatrixDTO.Row(user.getId(), user.getFirstName() + " " + user.getLastName(),
+                    user.getDepartment(), new String(statuses[i]), ids[i], checkIns[i], checkOuts[i]));
+        }
+        AttendanceMatrixDTO matrix = new AttendanceMatrixDTO();
+        matrix.setFrom(from);
+        matrix.setTo(to);
+        matrix.setDays(days);
+        matrix.setRows(rows);
+        return matrix;
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time == null ? -1 : time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * Nombre de jours par statut pour un utilisateur sur [from, to], depuis le calendrier de présence (aucune requête SQL)
+     */
+    public Map<Attendance.AttendanceStatus, Integer> getPresenceCounts(Long userId, LocalDate from, LocalDate to) {
+        periodLength(from, to, MAX_CALENDAR_DAYS);
+        if (userDirectory.snapshot().byId(userId).isEmpty()) {
+            throw new RuntimeException("User not found");
+        }
+        return presenceCalendar.counts(userId, from, to);
+    }
+
+    /**
+     * Carte de présence des employés actifs (d'un département ou de tous) sur [from, to], depuis le calendrier de présence
+     */
+    public PresenceHeatmapDTO getPresenceHeatmap(LocalDate from, LocalDate to, String department,
+                                                 List<Attendance.AttendanceStatus> statuses) {
+        periodLength(from, to, MAX_CALENDAR_DAYS);
+        Set<Attendance.AttendanceStatus> counted = statuses == null || statuses.isEmpty()
+                ? PRESENCE_STATUSES
+                : EnumSet.copyOf(statuses);
+        List<Long> userIds = activeUsers(department).stream().map(UserDTO::getId).toList();
+        return new PresenceHeatmapDTO(from, to, counted, userIds.size(),
+                presenceCalendar.heatmap(userIds, counted, from, to));
+    }
+
+    /**
+     * Pointages par statut et par département sur une journée (agrégats en mémoire)
+     */
+    public AttendanceStatsDTO getDailyStats(LocalDate date, String department) {
+        return attendanceRollups.daily(date, department);
+    }
+
+    /**
+     * Pointages par statut et par département sur un mois (agrégats en mémoire)
+     */
+    public AttendanceStatsDTO getMonthlyStats(YearMonth month, String department) {
+        return attendanceRollups.monthly(month, department);
+    }
+
+    /**
+     * Reconstruire calendrier de présence et agrégats depuis la base (reprise après incident)
+     */
+    public int rebuildStats() {
+        return attendanceRollups.rebuild();
+    }
+
+    private static int periodLength(LocalDate from, LocalDate to, int maxDays) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new RuntimeException("Période invalide");
+        }
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > maxDays) {
+            throw new RuntimeException("Période trop longue (" + maxDays + " jours maximum)");
+        }
+        return days;
+    }
+
+    // Employés actifs depuis l'annuaire en mémoire, tous ou ceux d'un département
+    private List<UserDTO> activeUsers(String department) {
+        UserDirectory.Snapshot snapshot = userDirectory.snapshot();
+        return (department == null || department.isBlank() ? snapshot.all() : snapshot.byDepartment(department))
+                .stream()
+                .filter(user -> Boolean.TRUE.equals(user.getActive()))
+                .toList();
     }
 
     @Transactional
@@ -65,39 +211,30 @@ public class AttendanceService {
         attendance.setNotes(attendanceDTO.getNotes());
 
         attendance = attendanceRepository.save(attendance);
+        presenceCalendar.refreshAfterCommit(userId, attendance.getDate());
         return AttendanceDTO.fromAttendance(attendance);
     }
 
+    /**
+     * Pointer l'arrivée du jour : une seule requête, sûre face aux doubles clics et aux appels simultanés
+     */
     @Transactional
     public AttendanceDTO checkIn(Long userId) {
-        User user = userRepository.findById(userId)
+        AttendanceDTO attendance = attendanceRepository.upsertCheckIn(userId, LocalDate.now(), LocalTime.now())
                 .orElseThrow(() -> new RuntimeException("User not found"));
-
-        LocalDate today = LocalDate.now();
-        Attendance attendance = attendanceRepository.findByUserAndDate(user, today)
-                .orElse(new Attendance());
-
-        attendance.setUser(user);
-        attendance.setDate(today);
-        attendance.setCheckIn(LocalTime.now());
-        attendance.setStatus(Attendance.AttendanceStatus.PRESENT);
-
-        attendance = attendanceRepository.save(attendance);
-        return AttendanceDTO.fromAttendance(attendance);
+        presenceCalendar.refreshAfterCommit(userId, attendance.getDate());
+        return attendance;
     }
 
+    /**
+     * Pointer le départ du jour (une seule requête, l'existence de l'utilisateur n'est vérifiée qu'en cas d'échec)
+     */
     @Transactional
     public AttendanceDTO checkOut(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        LocalDate today = LocalDate.now();
-        Attendance attendance = attendanceRepository.findByUserAndDate(user, today)
-                .orElseThrow(() -> new RuntimeException("No check-in found for today"));
-
-        attendance.setCheckOut(LocalTime.now());
-        attendance = attendanceRepository.save(attendance);
-        return AttendanceDTO.fromAttendance(attendance);
+        return attendanceRepository.updateCheckOut(userId, LocalDate.now(), LocalTime.now())
+                .orElseThrow(() -> new RuntimeException(userRepository.existsById(userId)
+                        ? "No check-in found for today"
+                        : "User not found"));
     }
 
     @Transactional
@@ -111,11 +248,15 @@ public class AttendanceService {
         attendance.setNotes(attendanceDTO.getNotes());
 
         attendance = attendanceRepository.save(attendance);
+        presenceCalendar.refreshAfterCommit(attendance.getUser().getId(), attendance.getDate());
         return AttendanceDTO.fromAttendance(attendance);
     }
 
     @Transactional
     public void deleteAttendance(Long id) {
-        attendanceRepository.deleteById(id);
+        attendanceRepository.findById(id).ifPresent(attendance -> {
+            attendanceRepository.delete(attendance);
+            presenceCalendar.refreshAfterCommit(attendance.getUser().getId(), attendance.getDate());
+        });
     }
 }
\ No newline at end of file
@@ -5,7 +5,9 @@ import com.s4p.entreprise.dto.LoginRequest;
 import com.s4p.entreprise.dto.UserDTO;
 import com.s4p.entreprise.model.User;
 import com.s4p.entreprise.repository.UserRepository;
+import com.s4p.entreprise.security.BCryptCostPolicy;
 import com.s4p.entreprise.security.JwtTokenProvider;
+import com.s4p.entreprise.security.PasswordHashingExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -25,28 +27,45 @@ public class AuthService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private BCryptCostPolicy bCryptCostPolicy;
+
+    @Autowired
+    private UserService userService;
+
     /**
      * Authentifier un utilisateur et générer un token JWT
      */
     public JwtAuthResponse login(LoginRequest loginRequest) {
-        // Authentifier l'utilisateur
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginRequest.getEmail(),
-                        loginRequest.getPassword()
-                )
-        );
+        // Authentifier l'utilisateur (BCrypt exécuté sur le pool dédié, pas sur le thread Tomcat)
+        Authentication authentication = passwordHashingExecutor.execute(() -> {
+            Authentication result = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            loginRequest.getEmail(),
+                            loginRequest.getPassword()
+                    )
+            );
+
+            // Ré-encoder le mot de passe si son coût BCrypt ne correspond plus à celui de l'instance
+            if (result.getPrincipal() instanceof User user && bCryptCostPolicy.needsRehash(user.getPassword())) {
+                userService.rehashPassword(user, loginRequest.getPassword());
+            }
+            return result;
+        });
 
         // Mettre l'authentification dans le contexte de sécurité
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        // Générer le token JWT
-        String token = jwtTokenProvider.generateToken(authentication);
-
         // Récupérer les informations de l'utilisateur
         User user = userRepository.findByEmail(loginRequest.getEmail())
                 .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
 
+        // Générer le token JWT (id, rôle et version de token inclus)
+        String token = jwtTokenProvider.generateToken(user);
+
         // Convertir User en UserDTO
         UserDTO userDTO = convertToDTO(user);
 
@@ -58,18 +77,6 @@ public class AuthService {
      * Convertir User en UserDTO
      */
     private UserDTO convertToDTO(User user) {
-        UserDTO dto = new UserDTO();
-        dto.setId(user.getId());
-        dto.setEmail(user.getEmail());
-        dto.setFirstName(user.getFirstName());
-        dto.setLastName(user.getLastName());
-        dto.setPhone(user.getPhone());
-        dto.setDepartment(user.getDepartment());
-        dto.setPosition(user.getPosition());
-        dto.setRole(user.getRole().name());
-        dto.setVacationDays(user.getVacationDays());
-        dto.setActive(user.getActive());
-        dto.setCreatedAt(user.getCreatedAt());
-        return dto;
+        return UserDTO.fromUser(user);
     }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.s4p.entreprise.service;
+
+/**
+ * Levée quand un import d'utilisateurs est déjà en cours (HTTP 409)
+ */
+public class ImportAlreadyRunningException extends RuntimeException {
+
+    public ImportAlreadyRunningException(String message) {
+        super(message);
+    }
+}
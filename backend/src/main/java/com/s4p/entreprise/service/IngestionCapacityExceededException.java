@@ -0,0 +1,19 @@
+package com.s4p.entreprise.service;
+
+/**
+ * Levée quand la file des pointages est pleine (ou l'application en cours d'arrêt).
+ * Le client doit réessayer après retryAfterSeconds (HTTP 503 + Retry-After).
+ */
+public class IngestionCapacityExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public IngestionCapacityExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
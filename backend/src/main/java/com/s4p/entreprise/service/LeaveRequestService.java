@@ -12,7 +12,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class LeaveRequestService {
@@ -23,26 +22,28 @@ public class LeaveRequestService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Transactional(readOnly = true)
     public List<LeaveRequestDTO> getAllLeaveRequests() {
-        return leaveRequestRepository.findAll().stream()
-                .map(LeaveRequestDTO::fromLeaveRequest)
-                .collect(Collectors.toList());
+        return leaveRequestRepository.findAllDTOs();
     }
 
+    @Transactional(readOnly = true)
     public List<LeaveRequestDTO> getLeaveRequestsByUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return leaveRequestRepository.findByUserOrderByCreatedAtDesc(user).stream()
-                .map(LeaveRequestDTO::fromLeaveRequest)
-                .collect(Collectors.toList());
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        return leaveRequestRepository.findDTOsByUserId(userId);
     }
 
+    @Transactional(readOnly = true)
     public List<LeaveRequestDTO> getPendingLeaveRequests() {
-        return leaveRequestRepository.findByStatus(LeaveRequest.LeaveStatus.PENDING).stream()
-                .map(LeaveRequestDTO::fromLeaveRequest)
-                .collect(Collectors.toList());
+        return leaveRequestRepository.findDTOsByStatus(LeaveRequest.LeaveStatus.PENDING);
     }
 
+    @Transactional(readOnly = true)
     public LeaveRequestDTO getLeaveRequestById(Long id) {
         LeaveRequest leaveRequest = leaveRequestRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Leave request not found"));
@@ -88,10 +89,11 @@ public class LeaveRequestService {
 
         // Déduire les jours de congés si c'est un congé payé
         if (leaveRequest.getLeaveType() == LeaveRequest.LeaveType.PAID_LEAVE) {
-            User user = leaveRequest.getUser();
+            // Décrément en base : ni valeur périmée du cache de second niveau ni mise à jour perdue
+            Long userId = leaveRequest.getUser().getId();
             long days = ChronoUnit.DAYS.between(leaveRequest.getStartDate(), leaveRequest.getEndDate()) + 1;
-            user.setVacationDays(user.getVacationDays() - (int) days);
-            userRepository.save(user);
+            userRepository.deductVacationDays(userId, (int) days);
+            userDirectory.refreshAfterCommit(userId);
         }
 
         leaveRequest = leaveRequestRepository.save(leaveRequest);
@@ -10,7 +10,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class MessageService {
@@ -21,36 +20,38 @@ public class MessageService {
     @Autowired
     private UserRepository userRepository;
 
+    @Transactional(readOnly = true)
     public List<MessageDTO> getReceivedMessages(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return messageRepository.findByRecipientOrderByCreatedAtDesc(user).stream()
-                .map(MessageDTO::fromMessage)
-                .collect(Collectors.toList());
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        return messageRepository.findDTOsByRecipientId(userId);
     }
 
+    @Transactional(readOnly = true)
     public List<MessageDTO> getSentMessages(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return messageRepository.findBySenderOrderByCreatedAtDesc(user).stream()
-                .map(MessageDTO::fromMessage)
-                .collect(Collectors.toList());
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        return messageRepository.findDTOsBySenderId(userId);
     }
 
+    @Transactional(readOnly = true)
     public List<MessageDTO> getUnreadMessages(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return messageRepository.findByRecipientAndReadFalse(user).stream()
-                .map(MessageDTO::fromMessage)
-                .collect(Collectors.toList());
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        return messageRepository.findUnreadDTOsByRecipientId(userId);
     }
 
+    @Transactional(readOnly = true)
     public long getUnreadCount(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         return messageRepository.countByRecipientAndReadFalse(user);
     }
 
+    @Transactional(readOnly = true)
     public MessageDTO getMessageById(Long id) {
         Message message = messageRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Message not found"));
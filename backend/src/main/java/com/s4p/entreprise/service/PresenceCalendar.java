@@ -0,0 +1,439 @@
+package com.s4p.entreprise.service;
+
+import com.s4p.entreprise.model.Attendance;
+import com.s4p.entreprise.repository.AttendanceCalendarRepository.Day;
+import com.s4p.entreprise.repository.AttendanceCalendarRepository.DayStatusHandler;
+import com.s4p.entreprise.repository.AttendanceRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Calendrier de présence en mémoire : pour chaque utilisateur et chaque année, un bitset par statut
+ * (bit n = n-ième jour de l'année), soit 5 × 6 mots de 64 bits = 240 octets par utilisateur et par année.
+ * Les compteurs et la carte de présence se calculent par popcount, sans requête SQL.
+ * Un tableau publié n'est jamais modifié (copie à l'écriture) : les lectures ne prennent aucun verrou.
+ * Chargé au démarrage sur les attendance.calendar.years dernières années, tenu à jour après commit :
+ * le statut appliqué est relu en base sous un verrou par jour, si bien que deux écritures concurrentes
+ * sur le même jour laissent toujours le dernier statut commité, quel que soit l'ordre des callbacks.
+ * Rechargé entièrement chaque nuit (attendance.calendar.rebuild-cron) : écritures faites par les autres
+ * nœuds ou hors application, et passage à une nouvelle année.
+ * Chaque changement de statut d'un jour est notifié aux abonnés (Listener) pour les agrégats dérivés.
+ */
+@Component
+public class PresenceCalendar {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceCalendar.class);
+
+    private static final Attendance.AttendanceStatus[] STATUSES = Attendance.AttendanceStatus.values();
+
+    // 366 jours au plus sur 6 mots de 64 bits
+    private static final int WORDS_PER_STATUS = 6;
+
+    // Verrous par (utilisateur, jour), répartis sur un nombre fixe de bandes
+    private static final int DAY_LOCK_STRIPES = 64;
+
+    @Value("${attendance.calendar.years:3}")
+    private int years;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile Map<Key, long[]> calendars = new ConcurrentHashMap<>();
+
+    // Première année couverte : les périodes antérieures ne sont pas chargées
+    private volatile int firstYear;
+
+    // Mises à jour concurrentes entre elles (verrou partagé), exclusives avec une reconstruction complète
+    private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    // Relecture en base et application d'un jour sérialisées par jour
+    private final ReentrantLock[] dayLocks = new ReentrantLock[DAY_LOCK_STRIPES];
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Jours commités pendant une reconstruction, relus après elle par deferredUpdater
+    private final Set<Day> deferred = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean deferredScheduled = new AtomicBoolean();
+
+    private ExecutorService deferredUpdater;
+
+    private record Key(long userId, int year) {
+    }
+
+    /**
+     * Abonné aux changements du calendrier. Les notifications d'une reconstruction et celles des mises à jour
+     * ne s'entrelacent jamais ; celles d'un même jour arrivent dans l'ordre, celles de jours différents
+     * dans un ordre quelconque.
+     */
+    public interface Listener {
+
+        /**
+         * Statut d'un jour passé de before à after (null = pas de pointage)
+         */
+        void onTransition(long userId, LocalDate date, Attendance.AttendanceStatus before,
+                          Attendance.AttendanceStatus after);
+
+        /**
+         * Calendrier rechargé : days parcourt tous les jours renseignés
+         */
+        void onRebuild(Consumer<DayStatusHandler> days);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < dayLocks.length; i++) {
+            dayLocks[i] = new ReentrantLock();
+        }
+        this.firstYear = currentFirstYear();
+        this.deferredUpdater = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "presence-calendar");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("attendance.calendar.user-years", this, calendar -> calendar.calendars.size())
+                .description("Calendriers de présence (utilisateur × année) en mémoire")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deferredUpdater.shutdown();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    @Scheduled(cron = "${attendance.calendar.rebuild-cron:0 30 3 * * *}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Recharger tout le calendrier depuis la base. Les mises à jour reçues pendant le chargement
+     * sont relues à la fin de celui-ci et s'appliquent par-dessus. Retourne le nombre de pointages lus.
+     */
+    public int rebuild() {
+        rebuildLock.writeLock().lock();
+        try {
+            long start = System.nanoTime();
+            int firstYear = currentFirstYear();
+            Map<Key, long[]> rebuilt = new ConcurrentHashMap<>();
+            int[] rows = {0};
+            // Transaction en écriture : lecture sur le primaire (un réplica en retard perdrait des pointages commités)
+            transactionTemplate.executeWithoutResult(status -> attendanceRepository.forEachDayStatus(
+                    LocalDate.of(firstYear, 1, 1), (userId, date, attendanceStatus) -> {
+                        long[] words = rebuilt.computeIfAbsent(new Key(userId, date.getYear()), k -> emptyYear());
+                        set(words, date.getDayOfYear() - 1, attendanceStatus);
+                        rows[0]++;
+                    }));
+            this.calendars = rebuilt;
+            this.firstYear = firstYear;
+            listeners.forEach(listener -> listener.onRebuild(handler -> forEachDay(rebuilt, handler)));
+            log.info("Calendrier de présence chargé depuis {} : {} pointages, {} calendriers en {} ms",
+                    firstYear, rows[0], rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+            return rows[0];
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    // ========================================
+    // MISES À JOUR
+    // ========================================
+
+    /**
+     * Relire le statut d'un jour (créé, modifié ou supprimé) une fois la transaction courante commitée
+     */
+    public void refreshAfterCommit(Long userId, LocalDate date) {
+        refreshAfterCommit(List.of(new Day(userId, date)));
+    }
+
+    /**
+     * Relire le statut de plusieurs jours en une requête une fois la transaction courante commitée
+     */
+    public void refreshAfterCommit(Collection<Day> days) {
+        TransactionHooks.afterCommit(() -> refresh(days));
+    }
+
+    /**
+     * Jamais d'attente sur une reconstruction dans le thread de la requête : il tient encore la connexion
+     * de la transaction commitée, et la reconstruction a besoin d'une connexion du pool. Pendant une
+     * reconstruction, les jours sont mis de côté et relus par un thread dédié une fois celle-ci terminée.
+     */
+    private void refresh(Collection<Day> days) {
+        if (!rebuildLock.readLock().tryLock()) {
+            defer(days);
+            return;
+        }
+        try {
+            reload(days);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private void defer(Collection<Day> days) {
+        deferred.addAll(days);
+        if (deferredScheduled.compareAndSet(false, true)) {
+            deferredUpdater.execute(this::applyDeferred);
+        }
+    }
+
+    private void applyDeferred() {
+        deferredScheduled.set(false);
+        Set<Day> days = new HashSet<>(deferred);
+        deferred.removeAll(days);
+        if (days.isEmpty()) {
+            return;
+        }
+        // Thread dédié, sans connexion tenue : il peut attendre la fin de la reconstruction
+        rebuildLock.readLock().lock();
+        try {
+            reload(days);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * La relecture se fait sous le verrou de chaque jour : un callback en retard relit une base qui contient
+     * déjà les commits des callbacks passés avant lui, il ne peut donc pas réappliquer un statut périmé.
+     * Appelé sous le verrou partagé de reconstruction.
+     */
+    private void reload(Collection<Day> days) {
+        int firstYear = this.firstYear;
+        List<Day> covered = days.stream()
+                .filter(day -> day.date().getYear() >= firstYear)
+                .distinct()
+                .toList();
+        if (covered.isEmpty()) {
+            return;
+        }
+        // Bandes prises dans l'ordre croissant : pas d'interblocage entre deux lots
+        int[] stripes = covered.stream().mapToInt(PresenceCalendar::stripe).distinct().sorted().toArray();
+        try {
+            for (int stripe : stripes) {
+                dayLocks[stripe].lock();
+            }
+            try {
+                Map<Day, Attendance.AttendanceStatus> statuses = attendanceRepository.findDayStatuses(covered);
+                covered.forEach(day -> apply(day.userId(), day.date(), statuses.get(day)));
+            } finally {
+                for (int i = stripes.length - 1; i >= 0; i--) {
+                    dayLocks[stripes[i]].unlock();
+                }
+            }
+        } catch (RuntimeException e) {
+            // Le jour reste tel quel jusqu'à la prochaine reconstruction
+            log.warn("Calendrier de présence : relecture de {} jours impossible", covered.size(), e);
+        }
+    }
+
+    private void apply(long userId, LocalDate date, Attendance.AttendanceStatus status) {
+        int day = date.getDayOfYear() - 1;
+        Attendance.AttendanceStatus[] before = new Attendance.AttendanceStatus[1];
+        calendars.compute(new Key(userId, date.getYear()), (key, current) -> {
+            long[] words = current == null ? emptyYear() : current.clone();
+            before[0] = statusAt(words, day);
+            set(words, day, status);
+            return words;
+        });
+        if (before[0] != status) {
+            listeners.forEach(listener -> listener.onTransition(userId, date, before[0], status));
+        }
+    }
+
+    private static int stripe(Day day) {
+        return Math.floorMod(Objects.hash(day.userId(), day.date()), DAY_LOCK_STRIPES);
+    }
+
+    private int currentFirstYear() {
+        return LocalDate.now().getYear() - Math.max(years, 1) + 1;
+    }
+
+    // ========================================
+    // LECTURES
+    // ========================================
+
+    /**
+     * Statut d'un utilisateur un jour donné (vide s'il n'y a pas de pointage)
+     */
+    public Optional<Attendance.AttendanceStatus> statusOn(Long userId, LocalDate date) {
+        checkCovered(date);
+        long[] words = calendars.get(new Key(userId, date.getYear()));
+        return words == null ? Optional.empty() : Optional.ofNullable(statusAt(words, date.getDayOfYear() - 1));
+    }
+
+    /**
+     * Nombre de jours par statut pour un utilisateur sur [from, to] (un popcount par mot de 64 jours)
+     */
+    public Map<Attendance.AttendanceStatus, Integer> counts(Long userId, LocalDate from, LocalDate to) {
+        checkCovered(from);
+        Map<Attendance.AttendanceStatus, Integer> counts = new EnumMap<>(Attendance.AttendanceStatus.class);
+        for (Attendance.AttendanceStatus status : STATUSES) {
+            counts.put(status, 0);
+        }
+        Map<Key, long[]> current = calendars;
+        for (int year = from.getYear(); year <= to.getYear(); year++) {
+            long[] words = current.get(new Key(userId, year));
+            if (words == null) {
+                continue;
+            }
+            int first = firstDay(year, from);
+            int last = lastDay(year, to);
+            for (Attendance.AttendanceStatus status : STATUSES) {
+                int offset = status.ordinal() * WORDS_PER_STATUS;
+                int count = 0;
+                for (int w = first >>> 6; w <= last >>> 6; w++) {
+                    count += Long.bitCount(words[offset + w] & rangeMask(w, first, last));
+                }
+                counts.merge(status, count, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Carte de présence : pour chaque jour de [from, to], nombre d'utilisateurs ayant l'un des statuts demandés
+     */
+    public int[] heatmap(Collection<Long> userIds, Set<Attendance.AttendanceStatus> statuses,
+                         LocalDate from, LocalDate to) {
+        checkCovered(from);
+        int[] counts = new int[(int) ChronoUnit.DAYS.between(from, to) + 1];
+        Map<Key, long[]> current = calendars;
+        for (int year = from.getYear(); year <= to.getYear(); year++) {
+            int first = firstDay(year, from);
+            int last = lastDay(year, to);
+            // Position dans le résultat du premier jour de l'année (négative si l'année commence avant from)
+            int base = (int) ChronoUnit.DAYS.between(from, LocalDate.ofYearDay(year, 1));
+            for (Long userId : userIds) {
+                long[] words = current.get(new Key(userId, year));
+                if (words == null) {
+                    continue;
+                }
+                for (int w = first >>> 6; w <= last >>> 6; w++) {
+                    long word = 0;
+                    for (Attendance.AttendanceStatus status : statuses) {
+                        word |= words[status.ordinal() * WORDS_PER_STATUS + w];
+                    }
+                    word &= rangeMask(w, first, last);
+                    while (word != 0) {
+                        counts[base + (w << 6) + Long.numberOfTrailingZeros(word)]++;
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Refuser une période qui commence avant la première année chargée (rien n'y est compté)
+     */
+    public void checkCovered(LocalDate from) {
+        if (from.getYear() < firstYear) {
+            throw new RuntimeException("Calendrier de présence disponible à partir de " + firstYear);
+        }
+    }
+
+    // ========================================
+    // BITSETS
+    // ========================================
+
+    private static long[] emptyYear() {
+        return new long[STATUSES.length * WORDS_PER_STATUS];
+    }
+
+    private static Attendance.AttendanceStatus statusAt(long[] words, int day) {
+        for (Attendance.AttendanceStatus status : STATUSES) {
+            if ((words[status.ordinal() * WORDS_PER_STATUS + (day >>> 6)] & (1L << day)) != 0) {
+                return status;
+            }
+        }
+        return null;
+    }
+
+    // Un seul statut par jour : le bit du jour est effacé dans tous les statuts avant d'être posé
+    private static void set(long[] words, int day, Attendance.AttendanceStatus status) {
+        int word = day >>> 6;
+        long bit = 1L << day;
+        for (int s = 0; s < STATUSES.length; s++) {
+            words[s * WORDS_PER_STATUS + word] &= ~bit;
+        }
+        if (status != null) {
+            words[status.ordinal() * WORDS_PER_STATUS + word] |= bit;
+        }
+    }
+
+    private static void forEachDay(Map<Key, long[]> calendars, DayStatusHandler handler) {
+        calendars.forEach((key, words) -> {
+            for (Attendance.AttendanceStatus status : STATUSES) {
+                for (int w = 0; w < WORDS_PER_STATUS; w++) {
+                    long word = words[status.ordinal() * WORDS_PER_STATUS + w];
+                    while (word != 0) {
+                        int day = (w << 6) + Long.numberOfTrailingZeros(word);
+                        handler.accept(key.userId(), LocalDate.ofYearDay(key.year(), day + 1), status);
+                        word &= word - 1;
+                    }
+                }
+            }
+        });
+    }
+
+    // Jours [first, last] (index dans l'année) couverts par le mot w
+    private static long rangeMask(int w, int first, int last) {
+        long mask = -1L;
+        if (w == first >>> 6) {
+            mask &= -1L << first;
+        }
+        if (w == last >>> 6) {
+            mask &= -1L >>> (63 - (last & 63));
+        }
+        return mask;
+    }
+
+    private static int firstDay(int year, LocalDate from) {
+        return year == from.getYear() ? from.getDayOfYear() - 1 : 0;
+    }
+
+    private static int lastDay(int year, LocalDate to) {
+        return year == to.getYear() ? to.getDayOfYear() - 1 : Year.of(year).length() - 1;
+    }
+}
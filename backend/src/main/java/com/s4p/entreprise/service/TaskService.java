@@ -11,7 +11,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class TaskService {
@@ -22,26 +21,25 @@ public class TaskService {
     @Autowired
     private UserRepository userRepository;
 
+    @Transactional(readOnly = true)
     public List<TaskDTO> getAllTasks() {
-        return taskRepository.findAll().stream()
-                .map(TaskDTO::fromTask)
-                .collect(Collectors.toList());
+        return taskRepository.findAllDTOs();
     }
 
+    @Transactional(readOnly = true)
     public List<TaskDTO> getTasksByUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return taskRepository.findByAssignedToOrderByDueDateAsc(user).stream()
-                .map(TaskDTO::fromTask)
-                .collect(Collectors.toList());
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        return taskRepository.findDTOsByAssignedToId(userId);
     }
 
+    @Transactional(readOnly = true)
     public List<TaskDTO> getTasksByStatus(Task.TaskStatus status) {
-        return taskRepository.findByStatus(status).stream()
-                .map(TaskDTO::fromTask)
-                .collect(Collectors.toList());
+        return taskRepository.findDTOsByStatus(status);
     }
 
+    @Transactional(readOnly = true)
     public TaskDTO getTaskById(Long id) {
         Task task = taskRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Task not found"));
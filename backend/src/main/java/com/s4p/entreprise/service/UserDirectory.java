@@ -0,0 +1,240 @@
+package com.s4p.entreprise.service;
+
+import com.s4p.entreprise.dto.UserDTO;
+import com.s4p.entreprise.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Annuaire des utilisateurs en lecture seule, servi depuis la mémoire.
+ * Après le commit d'une écriture, seuls les utilisateurs modifiés sont relus en base ; le nouvel instantané
+ * immuable est construit sur un thread dédié (les écritures rapprochées sont regroupées) puis publié
+ * atomiquement : les lectures ne prennent aucun verrou et n'allouent rien. Une écriture est donc visible
+ * dans l'annuaire quelques millisecondes après la réponse.
+ * Rechargé entièrement toutes les users.directory.refresh-ms pour les écritures des autres nœuds.
+ */
+@Component
+public class UserDirectory {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDirectory.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private volatile Snapshot snapshot;
+
+    // Verrou plutôt que synchronized : un thread virtuel bloqué sur la requête ne monopolise pas son thread porteur
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    // Utilisateurs modifiés depuis le dernier instantané, en attente de relecture
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean updateScheduled = new AtomicBoolean();
+
+    private ExecutorService updater;
+
+    @PostConstruct
+    public void init() {
+        this.updater = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-directory");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        updater.shutdown();
+    }
+
+    /**
+     * Instantané courant (construit au premier appel si le préchargement n'a pas encore eu lieu)
+     */
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        return current != null ? current : refresh();
+    }
+
+    /**
+     * Mettre à jour un utilisateur (créé, modifié ou supprimé) une fois la transaction courante commitée
+     */
+    public void refreshAfterCommit(Long userId) {
+        TransactionHooks.afterCommit(() -> {
+            pending.add(userId);
+            if (updateScheduled.compareAndSet(false, true)) {
+                updater.execute(this::applyPending);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh();
+    }
+
+    @Scheduled(initialDelayString = "${users.directory.refresh-ms:60000}",
+            fixedDelayString = "${users.directory.refresh-ms:60000}")
+    public void periodicRefresh() {
+        refresh();
+    }
+
+    /**
+     * Reconstruire l'instantané depuis la base. Sérialisé avec les mises à jour partielles : une mise à jour
+     * commitée pendant la lecture est relue après, jamais écrasée par un instantané plus ancien.
+     */
+    public Snapshot refresh() {
+        refreshLock.lock();
+        try {
+            List<UserDTO> users = userRepository.findAllDTOs();
+            Snapshot rebuilt = new Snapshot(users);
+            this.snapshot = rebuilt;
+            return rebuilt;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Relire les utilisateurs en attente et publier un instantané qui les remplace (absents = supprimés)
+     */
+    private void applyPending() {
+        updateScheduled.set(false);
+        refreshLock.lock();
+        try {
+            Snapshot current = snapshot;
+            if (current == null || pending.isEmpty()) {
+                return;
+            }
+            Set<Long> ids = new HashSet<>(pending);
+            pending.removeAll(ids);
+            List<UserDTO> changed = userRepository.findDTOsByIdIn(ids);
+            this.snapshot = current.with(ids, changed);
+        } catch (RuntimeException e) {
+            // L'instantané reste tel quel jusqu'au prochain rechargement complet
+            log.warn("Mise à jour de l'annuaire impossible, rechargement complet au prochain cycle", e);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    public static final class Snapshot {
+
+        private final List<UserDTO> all;
+        private final List<UserDTO> active;
+        private final Map<Long, UserDTO> byId;
+        private final Map<String, List<UserDTO>> byDepartment;
+        private final Map<String, List<UserDTO>> byRole;
+        private final UserSearchIndex searchIndex;
+        private final String etag;
+
+        private Snapshot(List<UserDTO> users) {
+            this.all = List.copyOf(users);
+            this.active = users.stream()
+                    .filter(user -> Boolean.TRUE.equals(user.getActive()))
+                    .toList();
+
+            Map<Long, UserDTO> ids = new HashMap<>();
+            Map<String, List<UserDTO>> departments = new HashMap<>();
+            Map<String, List<UserDTO>> roles = new HashMap<>();
+            for (UserDTO user : users) {
+                ids.put(user.getId(), user);
+                if (user.getDepartment() != null) {
+                    departments.computeIfAbsent(departmentKey(user.getDepartment()), k -> new ArrayList<>()).add(user);
+                }
+                roles.computeIfAbsent(user.getRole(), k -> new ArrayList<>()).add(user);
+            }
+            this.byId = Map.copyOf(ids);
+            this.byDepartment = departments.entrySet().stream()
+                    .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> List.copyOf(e.getValue())));
+            this.byRole = roles.entrySet().stream()
+                    .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> List.copyOf(e.getValue())));
+            this.searchIndex = new UserSearchIndex(this.all);
+            this.etag = computeEtag(users);
+        }
+
+        /**
+         * Nouvel instantané où les utilisateurs ids sont remplacés par changed (ceux qui n'y sont pas sont retirés)
+         */
+        private Snapshot with(Set<Long> ids, List<UserDTO> changed) {
+            Map<Long, UserDTO> users = new TreeMap<>();
+            for (UserDTO user : all) {
+                if (!ids.contains(user.getId())) {
+                    users.put(user.getId(), user);
+                }
+            }
+            changed.forEach(user -> users.put(user.getId(), user));
+            return new Snapshot(new ArrayList<>(users.values()));
+        }
+
+        public List<UserDTO> all() {
+            return all;
+        }
+
+        public List<UserDTO> active() {
+            return active;
+        }
+
+        public Optional<UserDTO> byId(Long id) {
+            return Optional.ofNullable(byId.get(id));
+        }
+
+        /**
+         * Utilisateurs d'un département (comparaison insensible à la casse)
+         */
+        public List<UserDTO> byDepartment(String department) {
+            return byDepartment.getOrDefault(departmentKey(department), List.of());
+        }
+
+        public List<UserDTO> byRole(String role) {
+            return byRole.getOrDefault(role, List.of());
+        }
+
+        /**
+         * Recherche par préfixe (prénom, nom, email, département), les limit meilleurs résultats
+         */
+        public List<UserDTO> search(String query, int limit, boolean includeInactive) {
+            return searchIndex.search(query, limit, includeInactive);
+        }
+
+        /**
+         * ETag fort calculé une fois par instantané, à partir du contenu
+         */
+        public String etag() {
+            return etag;
+        }
+
+        private static String departmentKey(String department) {
+            return department.toLowerCase(Locale.ROOT);
+        }
+
+        private static String computeEtag(List<UserDTO> users) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                for (UserDTO user : users) {
+                    digest.update(user.toString().getBytes(StandardCharsets.UTF_8));
+                }
+                return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
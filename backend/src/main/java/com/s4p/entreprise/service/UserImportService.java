@@ -0,0 +1,443 @@
+package com.s4p.entreprise.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.s4p.entreprise.dto.CreateUserRequest;
+import com.s4p.entreprise.dto.UserImportReportDTO;
+import com.s4p.entreprise.dto.UserImportReportDTO.Row;
+import com.s4p.entreprise.dto.UserImportReportDTO.Status;
+import com.s4p.entreprise.model.User;
+import com.s4p.entreprise.repository.UserRepository;
+import com.s4p.entreprise.security.BCryptCostPolicy;
+import com.s4p.entreprise.security.TokenVersionRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Import en masse d'utilisateurs depuis un flux CSV ou NDJSON (un objet JSON par ligne).
+ * Le flux est lu par blocs : une seule requête d'unicité des emails par bloc, hash BCrypt
+ * en parallèle sur un pool borné, puis insertion en batch JDBC dans une transaction par bloc.
+ * CSV : un champ entre guillemets peut contenir des retours à la ligne (RFC 4180), sur au plus
+ * MAX_CSV_RECORD_LINES lignes ; au-delà l'enregistrement est refusé (guillemet probablement non fermé).
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    // Un nextval par ligne : la valeur est la borne haute d'un bloc que Hibernate (pooled) ne recevra jamais
+    private static final String INSERT_SQL = "INSERT INTO users (id, email, password, first_name, last_name, phone, "
+            + "department, position, role, active, vacation_days, token_version, created_at, updated_at) "
+            + "VALUES (nextval('users_seq'), ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (email) DO NOTHING";
+
+    private static final int MAX_CSV_RECORD_LINES = 20;
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BCryptCostPolicy costPolicy;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    // 0 = automatique (moitié des coeurs, comme le pool du login)
+    @Value("${security.import.pool-size:0}")
+    private int poolSize;
+
+    @Value("${security.import.chunk-size:500}")
+    private int chunkSize;
+
+    // 0 = security.bcrypt.min-strength (le hash est remis au coût courant au premier login)
+    @Value("${security.import.bcrypt-strength:0}")
+    private int bcryptStrength;
+
+    private ThreadPoolExecutor executor;
+
+    private PasswordEncoder importEncoder;
+
+    // Un seul import à la fois : le pool reste borné quel que soit le nombre d'appels
+    private final ReentrantLock importLock = new ReentrantLock();
+
+    @PostConstruct
+    public void init() {
+        if (poolSize <= 0) {
+            poolSize = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        }
+        chunkSize = Math.max(1, Math.min(chunkSize, 5000));
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                // Un bloc entier tient dans la file (un seul import à la fois) : jamais de hash sur le thread appelant
+                new ArrayBlockingQueue<>(chunkSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "user-import-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        int strength = bcryptStrength > 0 ? bcryptStrength : Math.min(costPolicy.getMinStrength(), costPolicy.getStrength());
+        this.importEncoder = new BCryptPasswordEncoder(strength);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Importer les utilisateurs du flux et retourner le résultat ligne par ligne
+     */
+    public UserImportReportDTO importUsers(InputStream input, Format format) throws IOException {
+        if (!importLock.tryLock()) {
+            throw new ImportAlreadyRunningException("Un import est déjà en cours, réessayez plus tard");
+        }
+
+        long start = System.nanoTime();
+        UserImportReportDTO report = new UserImportReportDTO();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            Set<String> seenEmails = new HashSet<>();
+            List<Candidate> chunk = new ArrayList<>(chunkSize);
+            String[] header = null;
+            int lineNumber = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int recordLine = lineNumber;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && hasOpenQuote(line)) {
+                    // Champ entre guillemets sur plusieurs lignes : lire jusqu'au guillemet fermant
+                    StringBuilder record = new StringBuilder(line);
+                    int recordLines = 1;
+                    String next;
+                    while (hasOpenQuote(record) && recordLines < MAX_CSV_RECORD_LINES
+                            && (next = reader.readLine()) != null) {
+                        lineNumber++;
+                        recordLines++;
+                        record.append('\n').append(next);
+                    }
+                    line = record.toString();
+                    if (hasOpenQuote(line)) {
+                        report.add(new Row(recordLine, null, Status.INVALID, null,
+                                "Guillemet non fermé (lignes " + recordLine + " à " + lineNumber + ")"));
+                        continue;
+                    }
+                }
+                if (format == Format.CSV && header == null) {
+                    header = parseCsvLine(line);
+                    continue;
+                }
+
+                Candidate candidate;
+                try {
+                    CreateUserRequest request = format == Format.CSV ? fromCsv(header, line) : fromJson(line);
+                    candidate = new Candidate(recordLine, normalize(request));
+                } catch (IllegalArgumentException e) {
+                    report.add(new Row(recordLine, null, Status.INVALID, null, e.getMessage()));
+                    continue;
+                }
+
+                String error = validate(candidate.request());
+                if (error != null) {
+                    report.add(new Row(candidate.line(), candidate.request().getEmail(), Status.INVALID, null, error));
+                } else if (!seenEmails.add(candidate.request().getEmail())) {
+                    report.add(new Row(candidate.line(), candidate.request().getEmail(), Status.DUPLICATE, null,
+                            "Email en double dans le fichier"));
+                } else {
+                    chunk.add(candidate);
+                    if (chunk.size() >= chunkSize) {
+                        importChunk(chunk, report);
+                        chunk.clear();
+                    }
+                }
+            }
+            importChunk(chunk, report);
+        } finally {
+            if (report.getCreated() > 0) {
+                userDirectory.refresh();
+            }
+            importLock.unlock();
+        }
+
+        report.getRows().sort(Comparator.comparingInt(Row::getLine));
+        report.setDurationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Import utilisateurs : {} lignes, {} créés, {} doublons, {} invalides en {} ms",
+                report.getTotal(), report.getCreated(), report.getDuplicates(), report.getInvalid(), report.getDurationMs());
+        return report;
+    }
+
+    /**
+     * Traiter un bloc : unicité en une requête, hash en parallèle, insertion en batch
+     */
+    private void importChunk(List<Candidate> chunk, UserImportReportDTO report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        Set<String> existing = new HashSet<>(userRepository.findExistingEmails(
+                chunk.stream().map(c -> c.request().getEmail()).toList()));
+        List<Candidate> toInsert = new ArrayList<>(chunk.size());
+        for (Candidate candidate : chunk) {
+            if (existing.contains(candidate.request().getEmail())) {
+                report.add(new Row(candidate.line(), candidate.request().getEmail(), Status.DUPLICATE, null,
+                        "Un utilisateur avec cet email existe déjà"));
+            } else {
+                toInsert.add(candidate);
+            }
+        }
+        if (toInsert.isEmpty()) {
+            return;
+        }
+
+        List<String> encodedPasswords;
+        try {
+            List<CompletableFuture<String>> hashes = toInsert.stream()
+                    .map(c -> CompletableFuture.supplyAsync(() -> importEncoder.encode(c.request().getPassword()), executor))
+                    .toList();
+            encodedPasswords = hashes.stream().map(CompletableFuture::join).toList();
+        } catch (RejectedExecutionException e) {
+            log.warn("Import utilisateurs : pool de hachage saturé, bloc ignoré", e);
+            for (Candidate candidate : toInsert) {
+                report.add(new Row(candidate.line(), candidate.request().getEmail(), Status.INVALID, null,
+                        "Pool de hachage saturé, ligne non importée"));
+            }
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Row> rows = new ArrayList<>(toInsert.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int[] counts = jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        CreateUserRequest request = toInsert.get(i).request();
+                        ps.setString(1, request.getEmail());
+                        ps.setString(2, encodedPasswords.get(i));
+                        ps.setString(3, request.getFirstName());
+                        ps.setString(4, request.getLastName());
+                        ps.setString(5, request.getPhone());
+                        ps.setString(6, request.getDepartment());
+                        ps.setString(7, request.getPosition());
+                        ps.setString(8, request.getRole());
+                        ps.setBoolean(9, true);
+                        ps.setInt(10, request.getVacationDays());
+                        ps.setInt(11, 0);
+                        ps.setTimestamp(12, now);
+                        ps.setTimestamp(13, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return toInsert.size();
+                    }
+                });
+
+                // 0 ligne insérée = email créé entre-temps par un autre appel (ON CONFLICT DO NOTHING)
+                List<Candidate> inserted = new ArrayList<>(toInsert.size());
+                for (int i = 0; i < toInsert.size(); i++) {
+                    Candidate candidate = toInsert.get(i);
+                    if (counts[i] == 0) {
+                        rows.add(new Row(candidate.line(), candidate.request().getEmail(), Status.DUPLICATE, null,
+                                "Un utilisateur avec cet email existe déjà"));
+                    } else {
+                        inserted.add(candidate);
+                    }
+                }
+                if (inserted.isEmpty()) {
+                    return;
+                }
+
+                Map<String, Long> ids = new HashMap<>();
+                for (Object[] row : userRepository.findIdsAndTokenVersionsByEmailIn(
+                        inserted.stream().map(c -> c.request().getEmail()).toList())) {
+                    ids.put((String) row[1], (Long) row[0]);
+                    tokenVersionRegistry.publish((Long) row[0], (Integer) row[2]);
+                }
+                for (Candidate candidate : inserted) {
+                    String email = candidate.request().getEmail();
+                    rows.add(new Row(candidate.line(), email, Status.CREATED, ids.get(email), null));
+                }
+            });
+        } catch (DataAccessException e) {
+            // Bloc annulé en entier (transaction) : aucune de ses lignes n'a été créée
+            log.warn("Import utilisateurs : bloc annulé", e);
+            rows.clear();
+            for (Candidate candidate : toInsert) {
+                rows.add(new Row(candidate.line(), candidate.request().getEmail(), Status.INVALID, null,
+                        "Erreur lors de l'insertion: " + e.getMostSpecificCause().getMessage()));
+            }
+        }
+        rows.forEach(report::add);
+    }
+
+    private String validate(CreateUserRequest request) {
+        Set<ConstraintViolation<CreateUserRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        try {
+            User.Role.valueOf(request.getRole());
+        } catch (IllegalArgumentException e) {
+            return "Rôle invalide: " + request.getRole();
+        }
+        return null;
+    }
+
+    /**
+     * Mêmes valeurs par défaut que la création unitaire (createUser)
+     */
+    private CreateUserRequest normalize(CreateUserRequest request) {
+        if (request.getEmail() != null) request.setEmail(request.getEmail().trim());
+        if (request.getRole() != null) request.setRole(request.getRole().trim().toUpperCase(Locale.ROOT));
+        if (request.getPhone() == null) request.setPhone("");
+        if (request.getVacationDays() == null) request.setVacationDays(25);
+        return request;
+    }
+
+    private CreateUserRequest fromJson(String line) {
+        try {
+            return objectMapper.readValue(line, CreateUserRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON invalide: " + e.getOriginalMessage());
+        }
+    }
+
+    private CreateUserRequest fromCsv(String[] header, String line) {
+        String[] values = parseCsvLine(line);
+        CreateUserRequest request = new CreateUserRequest();
+        for (int i = 0; i < header.length && i < values.length; i++) {
+            String value = values[i].isBlank() ? null : values[i].trim();
+            switch (header[i].trim().toLowerCase(Locale.ROOT).replace("_", "")) {
+                case "email" -> request.setEmail(value);
+                case "password" -> request.setPassword(value);
+                case "firstname" -> request.setFirstName(value);
+                case "lastname" -> request.setLastName(value);
+                case "phone" -> request.setPhone(value);
+                case "department" -> request.setDepartment(value);
+                case "position" -> request.setPosition(value);
+                case "role" -> request.setRole(value);
+                case "vacationdays" -> {
+                    try {
+                        request.setVacationDays(value != null ? Integer.valueOf(value) : null);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Nombre de jours de congés invalide: " + value);
+                    }
+                }
+                default -> { } // Colonne inconnue : ignorée
+            }
+        }
+        return request;
+    }
+
+    // Nombre impair de guillemets : un champ est encore ouvert ("" échappé compte pour deux)
+    private static boolean hasOpenQuote(CharSequence record) {
+        int quotes = 0;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return (quotes & 1) == 1;
+    }
+
+    /**
+     * Découper un enregistrement CSV (séparateur virgule, champs entre guillemets avec "" pour échapper)
+     */
+    private String[] parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Guillemet non fermé");
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    private record Candidate(int line, CreateUserRequest request) {
+    }
+}
@@ -0,0 +1,183 @@
+package com.s4p.entreprise.service;
+
+import com.s4p.entreprise.dto.UserDTO;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Index de recherche par préfixe sur le prénom, le nom, l'email et le département.
+ * Tableau trié de couples (mot, utilisateur) : chaque mot de la requête coûte une dichotomie
+ * puis un parcours de la plage de mots qui commencent par lui.
+ * Immuable : reconstruit avec chaque instantané de l'annuaire.
+ */
+final class UserSearchIndex {
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    private static final int EXACT_MATCH = 2;
+    private static final int PREFIX_MATCH = 1;
+
+    private final List<UserDTO> users;
+    private final String[] tokens;
+    private final int[] owners;
+    // Position de chaque utilisateur dans l'ordre alphabétique (nom, prénom, id), pour départager
+    private final int[] alphabeticalRank;
+    private final int[] ownerByRank;
+
+    UserSearchIndex(List<UserDTO> users) {
+        this.users = users;
+
+        List<Posting> postings = new ArrayList<>(users.size() * 6);
+        for (int i = 0; i < users.size(); i++) {
+            UserDTO user = users.get(i);
+            Set<String> words = new HashSet<>();
+            words.addAll(tokenize(user.getFirstName()));
+            words.addAll(tokenize(user.getLastName()));
+            words.addAll(tokenize(user.getEmail()));
+            words.addAll(tokenize(user.getDepartment()));
+            for (String word : words) {
+                postings.add(new Posting(word, i));
+            }
+        }
+        postings.sort(Comparator.comparing(Posting::token).thenComparingInt(Posting::owner));
+
+        this.tokens = new String[postings.size()];
+        this.owners = new int[postings.size()];
+        for (int i = 0; i < postings.size(); i++) {
+            tokens[i] = postings.get(i).token();
+            owners[i] = postings.get(i).owner();
+        }
+
+        Integer[] order = new Integer[users.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing((Integer i) -> users.get(i), Comparator
+                .comparing(UserDTO::getLastName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                .thenComparing(UserDTO::getFirstName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                .thenComparing(UserDTO::getId)));
+        this.alphabeticalRank = new int[users.size()];
+        this.ownerByRank = new int[users.size()];
+        for (int rank = 0; rank < order.length; rank++) {
+            alphabeticalRank[order[rank]] = rank;
+            ownerByRank[rank] = order[rank];
+        }
+    }
+
+    /**
+     * Utilisateurs dont chaque mot de la requête préfixe un de leurs mots, les mieux classés d'abord :
+     * correspondances exactes avant préfixes, puis ordre alphabétique (nom, prénom)
+     */
+    List<UserDTO> search(String query, int limit, boolean includeInactive) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0 || users.isEmpty()) {
+            return List.of();
+        }
+
+        // matchedTerms[u] = nombre de mots de la requête déjà trouvés pour u (un utilisateur doit tous les avoir)
+        int[] matchedTerms = new int[users.size()];
+        int[] scores = new int[users.size()];
+        int[] termScores = new int[users.size()];
+        int[] candidates = new int[users.size()];
+        int candidateCount = 0;
+
+        for (int t = 0; t < terms.size(); t++) {
+            String term = terms.get(t);
+            for (int i = lowerBound(term); i < tokens.length && tokens[i].startsWith(term); i++) {
+                int owner = owners[i];
+                int score = tokens[i].length() == term.length() ? EXACT_MATCH : PREFIX_MATCH;
+                if (matchedTerms[owner] == t) {
+                    matchedTerms[owner] = t + 1;
+                    scores[owner] += score;
+                    termScores[owner] = score;
+                    if (t == 0) {
+                        candidates[candidateCount++] = owner;
+                    }
+                } else if (matchedTerms[owner] == t + 1 && score > termScores[owner]) {
+                    scores[owner] += score - termScores[owner];
+                    termScores[owner] = score;
+                }
+            }
+        }
+
+        // Top-k : clé = (score inversé, rang alphabétique), gardée triée dans un petit tableau
+        int maxScore = EXACT_MATCH * terms.size();
+        long[] top = new long[Math.min(limit, candidateCount)];
+        int topCount = 0;
+        for (int c = 0; c < candidateCount; c++) {
+            int owner = candidates[c];
+            if (matchedTerms[owner] != terms.size()
+                    || (!includeInactive && !Boolean.TRUE.equals(users.get(owner).getActive()))) {
+                continue;
+            }
+            long key = ((long) (maxScore - scores[owner]) << 32) | alphabeticalRank[owner];
+            if (topCount == top.length && key >= top[topCount - 1]) {
+                continue;
+            }
+            int position = topCount == top.length ? topCount - 1 : topCount++;
+            while (position > 0 && top[position - 1] > key) {
+                top[position] = top[position - 1];
+                position--;
+            }
+            top[position] = key;
+        }
+
+        List<UserDTO> results = new ArrayList<>(topCount);
+        for (int i = 0; i < topCount; i++) {
+            results.add(users.get(ownerByRank[(int) top[i]]));
+        }
+        return results;
+    }
+
+    private int lowerBound(String term) {
+        int low = 0;
+        int high = tokens.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokens[mid].compareTo(term) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Minuscules, sans accents, découpé sur tout ce qui n'est ni lettre ni chiffre ("Hélène.Dupont@x.fr" → helene, dupont, x, fr)
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = isAscii(text)
+                ? text
+                : ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> words = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(normalized.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record Posting(String token, int owner) {
+    }
+}
@@ -2,9 +2,17 @@ package com.s4p.entreprise.service;
 
 import com.s4p.entreprise.dto.CreateUserRequest;
 import com.s4p.entreprise.dto.UserDTO;
+import com.s4p.entreprise.dto.UserPageDTO;
 import com.s4p.entreprise.model.User;
 import com.s4p.entreprise.repository.UserRepository;
+import com.s4p.entreprise.security.TokenRevocationList;
+import com.s4p.entreprise.security.TokenVersionRegistry;
+import com.s4p.entreprise.security.UserDetailsCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,23 +22,47 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
 
 @Service
 public class UserService implements UserDetailsService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final int DEFAULT_SEARCH_LIMIT = 10;
+    public static final int MAX_SEARCH_LIMIT = 50;
+
+    private static final Sort PAGE_SORT = Sort.by("lastName", "id");
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
     // ========================================
     // AUTHENTICATION
     // ========================================
 
+    // Pas de readOnly : l'authentification lit toujours la base principale (mot de passe, compte actif)
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         return userRepository.findByEmail(email)
@@ -42,26 +74,62 @@ public class UserService implements UserDetailsService {
     // ========================================
 
     /**
-     * Obtenir tous les utilisateurs
+     * Obtenir tous les utilisateurs (depuis l'annuaire en mémoire)
      */
     public List<UserDTO> getAllUsers() {
-        return userRepository.findAll().stream()
+        return userDirectory.snapshot().all();
+    }
+
+    /**
+     * Obtenir une page d'utilisateurs triés par (nom, id), par pagination keyset.
+     * Le curseur est opaque : il encode le dernier (nom, id) de la page précédente.
+     */
+    @Transactional(readOnly = true)
+    public UserPageDTO getUsersPage(String cursor, Integer size, String department, User.Role role, Boolean active) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        Specification<User> specification = (root, query, cb) -> cb.conjunction();
+        if (department != null && !department.isBlank()) {
+            String departmentKey = department.toUpperCase(Locale.ROOT);
+            specification = specification.and((root, query, cb) -> cb.equal(cb.upper(root.get("department")), departmentKey));
+        }
+        if (role != null) {
+            specification = specification.and((root, query, cb) -> cb.equal(root.get("role"), role));
+        }
+        if (active != null) {
+            specification = specification.and((root, query, cb) -> cb.equal(root.get("active"), active));
+        }
+
+        ScrollPosition position = decodeCursor(cursor);
+        Window<User> window = userRepository.findBy(specification, query -> query
+                .sortBy(PAGE_SORT)
+                .limit(pageSize)
+                .scroll(position));
+
+        List<UserDTO> items = window.stream()
                 .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .toList();
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? encodeCursor(window.getContent().get(window.size() - 1))
+                : null;
+        return new UserPageDTO(items, nextCursor, nextCursor != null, items.size());
     }
 
     /**
      * Obtenir un utilisateur par son ID
      */
+    @Transactional(readOnly = true)
     public UserDTO getUserById(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé avec l'ID: " + id));
-        return convertToDTO(user);
+        return userDirectory.snapshot().byId(id)
+                .orElseGet(() -> userRepository.findById(id)
+                        .map(this::convertToDTO)
+                        .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé avec l'ID: " + id)));
     }
 
     /**
      * Obtenir l'utilisateur actuellement connecté
      */
+    @Transactional(readOnly = true)
     public UserDTO getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
@@ -78,35 +146,35 @@ public class UserService implements UserDetailsService {
      * Obtenir les utilisateurs actifs
      */
     public List<UserDTO> getActiveUsers() {
-        return userRepository.findAll().stream()
-                .filter(User::getActive)
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return userDirectory.snapshot().active();
     }
 
     /**
      * Obtenir les utilisateurs par département
      */
     public List<UserDTO> getUsersByDepartment(String department) {
-        return userRepository.findAll().stream()
-                .filter(user -> department.equalsIgnoreCase(user.getDepartment()))
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return userDirectory.snapshot().byDepartment(department);
     }
 
     /**
      * Obtenir les utilisateurs par rôle
      */
     public List<UserDTO> getUsersByRole(User.Role role) {
-        return userRepository.findAll().stream()
-                .filter(user -> user.getRole() == role)
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return userDirectory.snapshot().byRole(role.name());
+    }
+
+    /**
+     * Rechercher des utilisateurs par préfixe (prénom, nom, email, département), depuis l'annuaire en mémoire
+     */
+    public List<UserDTO> searchUsers(String query, Integer limit, boolean includeInactive) {
+        int maxResults = limit == null ? DEFAULT_SEARCH_LIMIT : Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+        return userDirectory.snapshot().search(query, maxResults, includeInactive);
     }
 
     /**
      * Vérifier si un email existe déjà
      */
+    @Transactional(readOnly = true)
     public boolean existsByEmail(String email) {
         return userRepository.existsByEmail(email);
     }
@@ -141,6 +209,8 @@ public class UserService implements UserDetailsService {
         user.setUpdatedAt(LocalDateTime.now());
 
         User savedUser = userRepository.save(user);
+        tokenVersionRegistry.publish(savedUser.getId(), savedUser.getTokenVersion());
+        userDirectory.refreshAfterCommit(savedUser.getId());
         return convertToDTO(savedUser);
     }
 
@@ -153,7 +223,7 @@ public class UserService implements UserDetailsService {
      */
     @Transactional
     public UserDTO updateUser(Long id, UserDTO userDTO) {
-        User user = userRepository.findById(id)
+        User user = userRepository.findUncachedById(id)
                 .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
 
         // Mettre à jour les champs
@@ -167,6 +237,8 @@ public class UserService implements UserDetailsService {
         user.setUpdatedAt(LocalDateTime.now());
 
         User updatedUser = userRepository.save(user);
+        userDetailsCache.evictAfterCommit(updatedUser.getEmail());
+        userDirectory.refreshAfterCommit(id);
         return convertToDTO(updatedUser);
     }
 
@@ -175,12 +247,17 @@ public class UserService implements UserDetailsService {
      */
     @Transactional
     public void deactivateUser(Long id) {
-        User user = userRepository.findById(id)
+        User user = userRepository.findUncachedById(id)
                 .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
         
         user.setActive(false);
+        user.setTokenVersion(user.getTokenVersion() + 1);
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
+        userDetailsCache.evictAfterCommit(user.getEmail());
+        tokenVersionRegistry.publish(user.getId(), user.getTokenVersion());
+        tokenRevocationList.revokeUser(user.getEmail());
+        userDirectory.refreshAfterCommit(id);
     }
 
     /**
@@ -188,12 +265,14 @@ public class UserService implements UserDetailsService {
      */
     @Transactional
     public void activateUser(Long id) {
-        User user = userRepository.findById(id)
+        User user = userRepository.findUncachedById(id)
                 .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
         
         user.setActive(true);
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
+        userDetailsCache.evictAfterCommit(user.getEmail());
+        userDirectory.refreshAfterCommit(id);
     }
 
     /**
@@ -201,12 +280,24 @@ public class UserService implements UserDetailsService {
      */
     @Transactional
     public void resetPassword(Long id, String newPassword) {
-        User user = userRepository.findById(id)
+        User user = userRepository.findUncachedById(id)
                 .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
         
         user.setPassword(passwordEncoder.encode(newPassword));
+        user.setTokenVersion(user.getTokenVersion() + 1);
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
+        userDetailsCache.evictAfterCommit(user.getEmail());
+        tokenVersionRegistry.publish(user.getId(), user.getTokenVersion());
+    }
+
+    /**
+     * Ré-encoder le mot de passe avec le coût BCrypt courant (appelé au login).
+     * Ne fait rien si le hash a changé entre-temps (reset concurrent).
+     */
+    @Transactional
+    public void rehashPassword(User user, String rawPassword) {
+        userRepository.replacePasswordHash(user.getId(), user.getPassword(), passwordEncoder.encode(rawPassword));
     }
 
     // ========================================
@@ -218,32 +309,44 @@ public class UserService implements UserDetailsService {
      */
     @Transactional
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new RuntimeException("Utilisateur non trouvé");
-        }
-        userRepository.deleteById(id);
+        User user = userRepository.findUncachedById(id)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        userRepository.delete(user);
+        userDetailsCache.evictAfterCommit(user.getEmail());
+        tokenVersionRegistry.remove(user.getId());
+        tokenRevocationList.revokeUser(user.getEmail());
+        userDirectory.refreshAfterCommit(id);
     }
 
     // ========================================
     // UTILITAIRES
     // ========================================
 
+    private String encodeCursor(User last) {
+        String key = last.getId() + ":" + last.getLastName();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ScrollPosition decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf(':');
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put("lastName", key.substring(separator + 1));
+            keys.put("id", Long.valueOf(key.substring(0, separator)));
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new RuntimeException("Curseur de pagination invalide");
+        }
+    }
+
     /**
      * Convertir User en UserDTO
      */
     private UserDTO convertToDTO(User user) {
-        UserDTO dto = new UserDTO();
-        dto.setId(user.getId());
-        dto.setEmail(user.getEmail());
-        dto.setFirstName(user.getFirstName());
-        dto.setLastName(user.getLastName());
-        dto.setPhone(user.getPhone());
-        dto.setDepartment(user.getDepartment());
-        dto.setPosition(user.getPosition());
-        dto.setRole(user.getRole().name()); // Convertit User.Role en String
-        dto.setVacationDays(user.getVacationDays());
-        dto.setActive(user.getActive());
-        dto.setCreatedAt(user.getCreatedAt());
-        return dto;
+        return UserDTO.fromUser(user);
     }
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+-- Schéma initial : exactement la base créée par ddl-auto=update avant l'arrivée de Flyway (clés IDENTITY).
+-- Une base existante sans historique Flyway est marquée en version 1 (baseline-on-migrate) :
+-- ce script ne s'exécute que sur une base vide, tout changement ultérieur va dans une nouvelle version.
+
+CREATE TABLE users (
+    id             BIGINT       GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    first_name     VARCHAR(255) NOT NULL,
+    last_name      VARCHAR(255) NOT NULL,
+    email          VARCHAR(255) NOT NULL UNIQUE,
+    password       VARCHAR(255) NOT NULL,
+    phone          VARCHAR(255) NOT NULL,
+    position       VARCHAR(255) NOT NULL,
+    department     VARCHAR(255) NOT NULL,
+    role           VARCHAR(255) NOT NULL CHECK (role IN ('ADMIN', 'MANAGER', 'EMPLOYEE')),
+    active         BOOLEAN      NOT NULL,
+    vacation_days  INTEGER      NOT NULL,
+    created_at     TIMESTAMP(6) NOT NULL,
+    updated_at     TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE attendances (
+    id          BIGINT       GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id     BIGINT       NOT NULL REFERENCES users (id),
+    date        DATE         NOT NULL,
+    check_in    TIME(6),
+    check_out   TIME(6),
+    status      VARCHAR(255) NOT NULL CHECK (status IN ('PRESENT', 'ABSENT', 'LATE', 'HALF_DAY', 'REMOTE')),
+    notes       VARCHAR(500),
+    created_at  TIMESTAMP(6) NOT NULL,
+    updated_at  TIMESTAMP(6)
+);
+
+CREATE TABLE tasks (
+    id            BIGINT        GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title         VARCHAR(255)  NOT NULL,
+    description   VARCHAR(2000),
+    assigned_to   BIGINT        NOT NULL REFERENCES users (id),
+    created_by    BIGINT        NOT NULL REFERENCES users (id),
+    status        VARCHAR(255)  NOT NULL CHECK (status IN ('TODO', 'IN_PROGRESS', 'COMPLETED', 'CANCELLED')),
+    priority      VARCHAR(255)  NOT NULL CHECK (priority IN ('LOW', 'MEDIUM', 'HIGH', 'URGENT')),
+    due_date      DATE,
+    completed_at  TIMESTAMP(6),
+    created_at    TIMESTAMP(6)  NOT NULL,
+    updated_at    TIMESTAMP(6)
+);
+
+CREATE TABLE leave_requests (
+    id                BIGINT        GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id           BIGINT        NOT NULL REFERENCES users (id),
+    start_date        DATE          NOT NULL,
+    end_date          DATE          NOT NULL,
+    leave_type        VARCHAR(255)  NOT NULL CHECK (leave_type IN ('PAID_LEAVE', 'SICK_LEAVE', 'UNPAID_LEAVE', 'MATERNITY_LEAVE', 'PATERNITY_LEAVE', 'OTHER')),
+    reason            VARCHAR(1000) NOT NULL,
+    status            VARCHAR(255)  NOT NULL CHECK (status IN ('PENDING', 'APPROVED', 'REJECTED', 'CANCELLED')),
+    approved_by       BIGINT        REFERENCES users (id),
+    approved_at       TIMESTAMP(6),
+    rejection_reason  VARCHAR(500),
+    created_at        TIMESTAMP(6)  NOT NULL,
+    updated_at        TIMESTAMP(6)
+);
+
+CREATE TABLE messages (
+    id            BIGINT        GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    sender_id     BIGINT        NOT NULL REFERENCES users (id),
+    recipient_id  BIGINT        NOT NULL REFERENCES users (id),
+    subject       VARCHAR(255)  NOT NULL,
+    content       VARCHAR(5000) NOT NULL,
+    read          BOOLEAN       NOT NULL,
+    read_at       TIMESTAMP(6),
+    created_at    TIMESTAMP(6)  NOT NULL
+);
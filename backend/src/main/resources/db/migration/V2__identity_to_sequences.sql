@@ -0,0 +1,29 @@
+-- Passage des clés IDENTITY aux séquences partagées avec Hibernate (optimiseur pooled, pas de 50).
+-- Sur une base créée par V1 ou par ddl-auto=update avant le passage aux séquences, retire les IDENTITY
+-- et cale chaque séquence au-delà du plus grand id (sans effet si c'est déjà fait).
+-- Après setval, le prochain nextval vaut max(id) + 50 : Hibernate utilise le bloc ]max(id), max(id) + 50].
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE users_seq INCREMENT BY 50;
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+SELECT setval('users_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM users), (SELECT last_value FROM users_seq)));
+
+CREATE SEQUENCE IF NOT EXISTS attendances_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE attendances_seq INCREMENT BY 50;
+ALTER TABLE attendances ALTER COLUMN id DROP IDENTITY IF EXISTS;
+SELECT setval('attendances_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM attendances), (SELECT last_value FROM attendances_seq)));
+
+CREATE SEQUENCE IF NOT EXISTS tasks_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE tasks_seq INCREMENT BY 50;
+ALTER TABLE tasks ALTER COLUMN id DROP IDENTITY IF EXISTS;
+SELECT setval('tasks_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM tasks), (SELECT last_value FROM tasks_seq)));
+
+CREATE SEQUENCE IF NOT EXISTS leave_requests_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE leave_requests_seq INCREMENT BY 50;
+ALTER TABLE leave_requests ALTER COLUMN id DROP IDENTITY IF EXISTS;
+SELECT setval('leave_requests_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM leave_requests), (SELECT last_value FROM leave_requests_seq)));
+
+CREATE SEQUENCE IF NOT EXISTS messages_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE messages_seq INCREMENT BY 50;
+ALTER TABLE messages ALTER COLUMN id DROP IDENTITY IF EXISTS;
+SELECT setval('messages_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM messages), (SELECT last_value FROM messages_seq)));
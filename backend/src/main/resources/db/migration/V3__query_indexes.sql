@@ -0,0 +1,30 @@
+-- Index des requêtes de l'application (en plus des clés primaires et de users.email).
+
+-- Un seul pointage par utilisateur et par jour : on garde le plus récent des éventuels doublons
+DELETE FROM attendances a
+USING attendances b
+WHERE a.user_id = b.user_id
+  AND a.date = b.date
+  AND a.id < b.id;
+
+-- Pointage du jour (check-in/check-out) et historique d'un utilisateur sur une période
+CREATE UNIQUE INDEX ux_attendances_user_date ON attendances (user_id, date);
+-- Pointages de tous les utilisateurs sur une période
+CREATE INDEX idx_attendances_date ON attendances (date);
+
+-- Tâches d'un utilisateur triées par échéance, tâches créées par un utilisateur, filtre par statut
+CREATE INDEX idx_tasks_assigned_to_due_date ON tasks (assigned_to, due_date);
+CREATE INDEX idx_tasks_created_by ON tasks (created_by);
+CREATE INDEX idx_tasks_status ON tasks (status);
+
+-- Demandes à valider et historique d'un utilisateur (plus récentes d'abord)
+CREATE INDEX idx_leave_requests_status ON leave_requests (status);
+CREATE INDEX idx_leave_requests_user_created_at ON leave_requests (user_id, created_at);
+
+-- Boîte de réception / messages envoyés (plus récents d'abord) et compteur de non lus
+CREATE INDEX idx_messages_recipient_created_at ON messages (recipient_id, created_at);
+CREATE INDEX idx_messages_sender_created_at ON messages (sender_id, created_at);
+CREATE INDEX idx_messages_unread_recipient ON messages (recipient_id) WHERE read = false;
+
+-- Filtre département de la liste paginée des utilisateurs (comparaison insensible à la casse)
+CREATE INDEX idx_users_department_upper ON users (upper(department));
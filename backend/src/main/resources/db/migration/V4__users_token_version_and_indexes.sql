@@ -0,0 +1,11 @@
+-- Colonne et index de users ajoutés après le schéma initial (V1 reste identique à la base d'origine).
+-- IF NOT EXISTS : une base passée par ddl-auto=update après leur ajout dans l'entité les a déjà.
+
+-- Version des tokens JWT, incrémentée pour invalider les tokens déjà émis
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version INTEGER NOT NULL DEFAULT 0;
+
+-- Filtres de l'annuaire et tri de la liste paginée (last_name, id)
+CREATE INDEX IF NOT EXISTS idx_users_active ON users (active);
+CREATE INDEX IF NOT EXISTS idx_users_department ON users (department);
+CREATE INDEX IF NOT EXISTS idx_users_role ON users (role);
+CREATE INDEX IF NOT EXISTS idx_users_last_name_id ON users (last_name, id);
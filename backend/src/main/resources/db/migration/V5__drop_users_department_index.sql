@@ -0,0 +1,3 @@
+-- Les listes par département sont servies par l'annuaire en mémoire (UserDirectory) : plus aucune requête
+-- ne compare users.department tel quel. Le filtre de la liste paginée passe par idx_users_department_upper.
+DROP INDEX IF EXISTS idx_users_department;
@@ -0,0 +1,48 @@
+package com.s4p.entreprise;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Base des tests d'intégration : application complète (Tomcat sur un port libre) sur un PostgreSQL embarqué,
+ * schéma créé par Flyway. Une seule instance par JVM, partagée par le contexte Spring mis en cache entre
+ * les classes de test. Tomcat démarré comme en production : il enregistre le gestionnaire d'URL
+ * qui résout classpath:ehcache.xml pour le cache de second niveau.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public abstract class PostgresIntegrationTest {
+
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("logging.level.com.s4p.entreprise", () -> "INFO");
+        registry.add("logging.level.org.springframework.security", () -> "INFO");
+        // Pas de rechargement périodique depuis la base pendant un test (compteurs de requêtes stables)
+        registry.add("users.directory.refresh-ms", () -> "3600000");
+        registry.add("security.token-version.refresh-ms", () -> "3600000");
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                    // Arrêt de la JVM : le répertoire temporaire est de toute façon abandonné
+                }
+            }));
+            return postgres;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de démarrer PostgreSQL embarqué", e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.s4p.entreprise.security;
+
+import com.s4p.entreprise.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Micro-benchmark de la vérification JWT : ancien chemin (parser reconstruit, token vérifié deux fois)
+ * contre verify() sur le parser partagé, temps par appel écrits dans le log. Hors build par défaut :
+ *   mvn test -Dtest=JwtTokenProviderBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JwtTokenProviderBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtTokenProviderBenchmarkTest.class);
+
+    private static final String SECRET = "SecretDeBenchmarkSuffisammentLongPourHmacSha256Bits!!";
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+
+    private JwtTokenProvider provider;
+    private SecretKey key;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpirationInMs", 3_600_000L);
+        ReflectionTestUtils.setField(provider, "jwtKeyStore", new JwtKeyStore());
+        provider.init();
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+
+        User user = new User();
+        user.setId(42L);
+        user.setEmail("bench@example.com");
+        user.setRole(User.Role.EMPLOYEE);
+        user.setTokenVersion(0);
+        token = provider.generateToken(user);
+    }
+
+    @Test
+    void measuresSharedParserAgainstRebuiltParsers() {
+        for (int i = 0; i < WARMUP; i++) {
+            legacyPath(token);
+            provider.verify(token);
+        }
+
+        long legacy = perCallNanos(() -> legacyPath(token));
+        long shared = perCallNanos(() -> provider.verify(token));
+        // Mesure indicative (pas d'assertion sur les temps, qui dépendent de la machine)
+        log.info("JWT : ancien chemin {} ns/requête, parser partagé {} ns/requête", legacy, shared);
+
+        assertEquals(legacyPath(token), provider.verify(token).subject());
+    }
+
+    // Ancien filtre : validateToken puis getUsernameFromToken, chacun avec son propre parser
+    private String legacyPath(String jwt) {
+        Jwts.parser().verifyWith(key).build().parseSignedClaims(jwt);
+        Claims claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(jwt).getPayload();
+        return claims.getSubject();
+    }
+
+    private static long perCallNanos(Runnable call) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            call.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+}
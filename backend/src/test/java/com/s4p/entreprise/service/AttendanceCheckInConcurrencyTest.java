@@ -0,0 +1,80 @@
+package com.s4p.entreprise.service;
+
+import com.s4p.entreprise.PostgresIntegrationTest;
+import com.s4p.entreprise.dto.AttendanceDTO;
+import com.s4p.entreprise.model.User;
+import com.s4p.entreprise.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Check-in simultanés d'un même utilisateur (doubles clics, reprises du client) :
+ * une seule ligne de pointage pour la journée, quel que soit l'entrelacement des transactions.
+ */
+class AttendanceCheckInConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentCheckInsCreateASingleAttendance() throws Exception {
+        Long userId = createUser("checkin-concurrency@example.com");
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<AttendanceDTO>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return attendanceService.checkIn(userId);
+                }));
+            }
+            start.countDown();
+
+            Long attendanceId = results.get(0).get().getId();
+            for (Future<AttendanceDTO> result : results) {
+                // Aucun appel ne doit échouer (violation d'unicité) et tous renvoient la même ligne
+                assertEquals(attendanceId, result.get().getId());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Long rows = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM attendances WHERE user_id = ? AND date = ?",
+                Long.class, userId, LocalDate.now());
+        assertEquals(1L, rows);
+    }
+
+    private Long createUser(String email) {
+        User user = new User();
+        user.setFirstName("Test");
+        user.setLastName("Concurrence");
+        user.setEmail(email);
+        user.setPassword("not-a-real-hash");
+        user.setPhone("0000000000");
+        user.setPosition("Testeur");
+        user.setDepartment("QA");
+        return userRepository.save(user).getId();
+    }
+}
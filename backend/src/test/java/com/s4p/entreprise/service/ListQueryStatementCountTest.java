@@ -0,0 +1,119 @@
+package com.s4p.entreprise.service;
+
+import com.s4p.entreprise.PostgresIntegrationTest;
+import com.s4p.entreprise.model.Task;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Garde-fou contre le N+1 sur les listes : le nombre de requêtes SQL d'un appel ne dépend pas du nombre
+ * d'utilisateurs référencés par les lignes (utilisateurs chargés dans la même requête que les lignes).
+ * Le cache de second niveau est vidé avant chaque mesure, sinon il masquerait les chargements paresseux.
+ */
+class ListQueryStatementCountTest extends PostgresIntegrationTest {
+
+    private static final int USERS = 8;
+    private static final int ROWS = 40;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private LeaveRequestService leaveRequestService;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long userId;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO users (id, first_name, last_name, email, password, phone, position, "
+                + "department, role, active, vacation_days, token_version, created_at, updated_at) "
+                + "SELECT nextval('users_seq'), 'Liste', 'U' || i, 'n1-' || i || '-' || nextval('users_seq') || '@example.com', "
+                + "'not-a-real-hash', '0000000000', 'Testeur', 'N1', 'EMPLOYEE', true, 25, 0, now(), now() "
+                + "FROM generate_series(1, ?) i", USERS);
+        List<Long> users = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE department = 'N1' ORDER BY id DESC LIMIT ?", Long.class, USERS);
+        userId = users.get(0);
+        Long[] ids = users.toArray(Long[]::new);
+
+        // Chaque ligne référence des utilisateurs différents : un N+1 coûterait une requête par utilisateur
+        jdbcTemplate.update("INSERT INTO tasks (id, title, assigned_to, created_by, status, priority, created_at) "
+                + "SELECT nextval('tasks_seq'), 'Tâche ' || i, (?::bigint[])[1 + i % ?], (?::bigint[])[1 + (i + 1) % ?], "
+                + "'TODO', 'MEDIUM', now() FROM generate_series(1, ?) i", ids, USERS, ids, USERS, ROWS);
+        jdbcTemplate.update("INSERT INTO attendances (id, user_id, date, status, created_at) "
+                + "SELECT nextval('attendances_seq'), (?::bigint[])[1 + i % ?], DATE '2020-01-01' + i, 'PRESENT', now() "
+                + "FROM generate_series(1, ?) i", ids, USERS, ROWS);
+        jdbcTemplate.update("INSERT INTO leave_requests (id, user_id, start_date, end_date, leave_type, reason, "
+                + "status, approved_by, created_at) "
+                + "SELECT nextval('leave_requests_seq'), (?::bigint[])[1 + i % ?], DATE '2030-01-01' + i, "
+                + "DATE '2030-01-01' + i, 'OTHER', 'Test', CASE WHEN i % 2 = 0 THEN 'PENDING' ELSE 'APPROVED' END, "
+                + "CASE WHEN i % 2 = 0 THEN NULL ELSE (?::bigint[])[1 + (i + 1) % ?] END, now() "
+                + "FROM generate_series(1, ?) i", ids, USERS, ids, USERS, ROWS);
+        jdbcTemplate.update("INSERT INTO messages (id, sender_id, recipient_id, subject, content, read, created_at) "
+                + "SELECT nextval('messages_seq'), (?::bigint[])[1 + i % ?], "
+                + "CASE WHEN i % 2 = 0 THEN ?::bigint ELSE (?::bigint[])[1 + (i + 1) % ?] END, "
+                + "'Sujet', 'Contenu', false, now() FROM generate_series(1, ?) i",
+                ids, USERS, userId, ids, USERS, ROWS);
+    }
+
+    @Test
+    void taskListsUseConstantStatements() {
+        assertStatements(1, () -> taskService.getAllTasks());
+        assertStatements(2, () -> taskService.getTasksByUser(userId));
+        assertStatements(1, () -> taskService.getTasksByStatus(Task.TaskStatus.TODO));
+    }
+
+    @Test
+    void attendanceListsUseConstantStatements() {
+        assertStatements(1, () -> attendanceService.getAllAttendances());
+        assertStatements(2, () -> attendanceService.getAttendancesByUser(userId));
+    }
+
+    @Test
+    void leaveRequestListsUseConstantStatements() {
+        assertStatements(1, () -> leaveRequestService.getAllLeaveRequests());
+        assertStatements(2, () -> leaveRequestService.getLeaveRequestsByUser(userId));
+        assertStatements(1, () -> leaveRequestService.getPendingLeaveRequests());
+    }
+
+    @Test
+    void messageListsUseConstantStatements() {
+        assertStatements(2, () -> messageService.getReceivedMessages(userId));
+        assertStatements(2, () -> messageService.getSentMessages(userId));
+        assertStatements(2, () -> messageService.getUnreadMessages(userId));
+    }
+
+    private void assertStatements(long expected, Supplier<List<?>> call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        List<?> rows = call.get();
+
+        assertFalse(rows.isEmpty(), "jeu de données vide, la mesure ne prouve rien");
+        assertEquals(expected, statistics.getPrepareStatementCount(),
+                "requêtes SQL pour " + rows.size() + " lignes");
+    }
+}
@@ -3,8 +3,8 @@ import { Calendar, Clock, Edit2, Check, X, UserCheck, UserX, AlertCircle, Search
 import apiService from '../services/apiService';
 
 const AttendancePlanning = () => {
-  const [attendances, setAttendances] = useState([]);
-  const [users, setUsers] = useState([]);
+  const [matrix, setMatrix] = useState(null);
+  const [todayMatrix, setTodayMatrix] = useState(null);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
   const [selectedMonth, setSelectedMonth] = useState(new Date().getMonth());
@@ -23,28 +23,36 @@ const AttendancePlanning = () => {
 
   useEffect(() => {
     fetchData();
-  }, [selectedMonth, selectedYear]);
+  }, [selectedMonth, selectedYear, departmentFilter]);
+
+  // Date locale au format AAAA-MM-JJ (toISOString décalerait le jour selon le fuseau)
+  const toIsoDate = (year, month, day) =>
+    `${year}-${String(month + 1).padStart(2, '0')}-${String(day).padStart(2, '0')}`;
 
   const fetchData = async () => {
     try {
       setLoading(true);
       setError(null);
-      
-      const [usersData, attendancesData] = await Promise.all([
-        apiService.getAllUsers(),
-        apiService.getAttendances()
+
+      // Planning du mois affiché + journée en cours pour les compteurs du jour (grille construite côté serveur)
+      const now = new Date();
+      const todayString = toIsoDate(now.getFullYear(), now.getMonth(), now.getDate());
+      const [monthData, todayData] = await Promise.all([
+        apiService.getAttendanceMatrix(
+          toIsoDate(selectedYear, selectedMonth, 1),
+          toIsoDate(selectedYear, selectedMonth, getDaysInMonth(selectedMonth, selectedYear)),
+          departmentFilter
+        ),
+        apiService.getAttendanceMatrix(todayString, todayString, departmentFilter)
       ]);
-      
-      console.log('Users:', usersData.data);
-      console.log('Attendances:', attendancesData.data);
-      
-      setUsers(Array.isArray(usersData.data) ? usersData.data : []);
-      setAttendances(Array.isArray(attendancesData.data) ? attendancesData.data : []);
+
+      setMatrix(monthData.data);
+      setTodayMatrix(todayData.data);
     } catch (error) {
       console.error('Erreur chargement données:', error);
       setError(error.response?.data?.message || 'Erreur de chargement');
-      setUsers([]);
-      setAttendances([]);
+      setMatrix(null);
+      setTodayMatrix(null);
     } finally {
       setLoading(false);
     }
@@ -55,108 +63,40 @@ const AttendancePlanning = () => {
     return new Date(year, month + 1, 0).getDate();
   };
 
-  // Filtrer les utilisateurs
-  const filteredUsers = users.filter(user => {
-    const matchSearch = searchTerm === '' || 
-      `${user.firstName} ${user.lastName}`.toLowerCase().includes(searchTerm.toLowerCase());
-    const matchDepartment = departmentFilter === '' || user.department === departmentFilter;
-    return matchSearch && matchDepartment && user.active;
-  });
+  // Filtrer les employés (département et actifs déjà filtrés par le serveur)
+  const rows = matrix?.rows ?? [];
+  const filteredRows = rows.filter(row =>
+    searchTerm === '' || row.userName.toLowerCase().includes(searchTerm.toLowerCase())
+  );
+  const rowsByUser = new Map(rows.map(row => [row.userId, row]));
 
-  // Obtenir la présence pour un utilisateur et un jour donné
+  // Obtenir la présence pour un utilisateur et un jour donné (cellule de la matrice)
   const getAttendanceForDay = (userId, day) => {
-    const date = new Date(selectedYear, selectedMonth, day);
-    const dateString = date.toISOString().split('T')[0];
-    
-    return attendances.find(att => {
-      if (!att.date) return false;
-      
-      // Gérer différents formats de date
-      let attDateString;
-      if (typeof att.date === 'string') {
-        attDateString = att.date.split('T')[0];
-      } else if (Array.isArray(att.date) && att.date.length >= 3) {
-        // Format [2025, 12, 2] du backend Java
-        const year = att.date[0];
-        const month = String(att.date[1]).padStart(2, '0');
-        const dayNum = String(att.date[2]).padStart(2, '0');
-        attDateString = `${year}-${month}-${dayNum}`;
-      } else {
-        return false;
-      }
-      
-      return att.userId === userId && attDateString === dateString;
-    });
+    const row = rowsByUser.get(userId);
+    const index = day - 1;
+    if (!row || row.statuses[index] === '.') return undefined;
+    return {
+      id: row.attendanceIds[index],
+      status: matrix.legend[row.statuses[index]],
+      checkIn: row.checkIns[index],
+      checkOut: row.checkOuts[index]
+    };
   };
 
-  // Convertir une date du backend en objet Date
-  const parseBackendDate = (dateValue) => {
-    if (!dateValue) return null;
-    
-    if (typeof dateValue === 'string') {
-      return new Date(dateValue);
-    } else if (Array.isArray(dateValue) && dateValue.length >= 3) {
-      // Format [2025, 12, 2] ou [2025, 12, 2, 8, 30, 0]
-      const year = dateValue[0];
-      const month = dateValue[1] - 1; // Les mois en JS commencent à 0
-      const day = dateValue[2];
-      const hours = dateValue[3] || 0;
-      const minutes = dateValue[4] || 0;
-      const seconds = dateValue[5] || 0;
-      return new Date(year, month, day, hours, minutes, seconds);
-    }
-    return null;
-  };
-
-  // Extraire l'heure d'une date
-  const extractTime = (dateValue) => {
-    const date = parseBackendDate(dateValue);
-    if (!date || isNaN(date.getTime())) return '';
-    return date.toTimeString().slice(0, 5);
+  // Minutes depuis minuit -> HH:MM ('' si non renseigné)
+  const formatMinutes = (minutes) => {
+    if (minutes == null || minutes < 0) return '';
+    return `${String(Math.floor(minutes / 60)).padStart(2, '0')}:${String(minutes % 60).padStart(2, '0')}`;
   };
 
   // Statistiques
-  const today = new Date().toISOString().split('T')[0];
+  const countStatus = (rowList, code) =>
+    rowList.reduce((total, row) => total + [...row.statuses].filter(c => c === code).length, 0);
   const stats = {
-    totalEmployees: filteredUsers.length,
-    presentToday: attendances.filter(att => {
-      if (!att.date) return false;
-      let attDateString;
-      if (typeof att.date === 'string') {
-        attDateString = att.date.split('T')[0];
-      } else if (Array.isArray(att.date) && att.date.length >= 3) {
-        const year = att.date[0];
-        const month = String(att.date[1]).padStart(2, '0');
-        const day = String(att.date[2]).padStart(2, '0');
-        attDateString = `${year}-${month}-${day}`;
-      } else {
-        return false;
-      }
-      return attDateString === today && att.status === 'PRESENT';
-    }).length,
-    absentToday: attendances.filter(att => {
-      if (!att.date) return false;
-      let attDateString;
-      if (typeof att.date === 'string') {
-        attDateString = att.date.split('T')[0];
-      } else if (Array.isArray(att.date) && att.date.length >= 3) {
-        const year = att.date[0];
-        const month = String(att.date[1]).padStart(2, '0');
-        const day = String(att.date[2]).padStart(2, '0');
-        attDateString = `${year}-${month}-${day}`;
-      } else {
-        return false;
-      }
-      return attDateString === today && att.status === 'ABSENT';
-    }).length,
-    totalPresencesMonth: attendances.filter(att => {
-      if (!att.date) return false;
-      const attDate = parseBackendDate(att.date);
-      if (!attDate || isNaN(attDate.getTime())) return false;
-      return attDate.getMonth() === selectedMonth && 
-             attDate.getFullYear() === selectedYear &&
-             att.status === 'PRESENT';
-    }).length
+    totalEmployees: filteredRows.length,
+    presentToday: countStatus(todayMatrix?.rows ?? [], 'P'),
+    absentToday: countStatus(todayMatrix?.rows ?? [], 'A'),
+    totalPresencesMonth: countStatus(rows, 'P')
   };
 
   // Ouvrir l'édition d'une cellule
@@ -165,8 +105,8 @@ const AttendancePlanning = () => {
     if (attendance) {
       setEditingCell({ userId, day });
       setEditForm({
-        checkIn: extractTime(attendance.checkIn) || '09:00',
-        checkOut: extractTime(attendance.checkOut) || '17:30',
+        checkIn: formatMinutes(attendance.checkIn) || '09:00',
+        checkOut: formatMinutes(attendance.checkOut) || '17:30',
         status: attendance.status || 'PRESENT'
       });
     } else {
@@ -184,8 +124,7 @@ const AttendancePlanning = () => {
   const handleSaveEdit = async () => {
     try {
       const { userId, day } = editingCell;
-      const date = new Date(selectedYear, selectedMonth, day);
-      const dateString = date.toISOString().split('T')[0];
+      const dateString = toIsoDate(selectedYear, selectedMonth, day);
 
       const attendance = getAttendanceForDay(userId, day);
 
@@ -293,8 +232,8 @@ const AttendancePlanning = () => {
       );
     }
 
-    const checkInDate = parseBackendDate(attendance.checkIn);
-    const checkOutDate = parseBackendDate(attendance.checkOut);
+    const checkInTime = formatMinutes(attendance.checkIn);
+    const checkOutTime = formatMinutes(attendance.checkOut);
 
     return (
       <td
@@ -307,11 +246,11 @@ const AttendancePlanning = () => {
         {attendance.status === 'PRESENT' ? (
           <div className="flex flex-col items-center">
             <UserCheck className="w-4 h-4 text-green-600 mb-1" />
-            {checkInDate && checkOutDate && !isNaN(checkInDate.getTime()) && !isNaN(checkOutDate.getTime()) && (
+            {checkInTime && checkOutTime && (
               <div className="text-xs text-gray-700">
-                {checkInDate.toLocaleTimeString('fr-FR', { hour: '2-digit', minute: '2-digit' })}
+                {checkInTime}
                 {' - '}
-                {checkOutDate.toLocaleTimeString('fr-FR', { hour: '2-digit', minute: '2-digit' })}
+                {checkOutTime}
               </div>
             )}
           </div>
@@ -513,18 +452,18 @@ const AttendancePlanning = () => {
               </tr>
             </thead>
             <tbody className="bg-white divide-y divide-gray-200">
-              {filteredUsers.map(user => (
-                <tr key={user.id} className="hover:bg-gray-50">
+              {filteredRows.map(row => (
+                <tr key={row.userId} className="hover:bg-gray-50">
                   <td className="sticky left-0 z-10 bg-white px-4 py-3 whitespace-nowrap border-r-2 border-gray-300">
                     <div>
                       <div className="text-sm font-medium text-gray-900">
-                        {user.firstName} {user.lastName}
+                        {row.userName}
                       </div>
-                      <div className="text-xs text-gray-500">{user.department}</div>
+                      <div className="text-xs text-gray-500">{row.department}</div>
                     </div>
                   </td>
                   {Array.from({ length: daysInMonth }, (_, i) => i + 1).map(day =>
-                    renderAttendanceCell(user.id, day)
+                    renderAttendanceCell(row.userId, day)
                   )}
                 </tr>
               ))}
@@ -534,7 +473,7 @@ const AttendancePlanning = () => {
       </div>
 
       {/* Pas de résultats */}
-      {filteredUsers.length === 0 && (
+      {filteredRows.length === 0 && (
         <div className="bg-white rounded-lg shadow p-8 text-center">
           <UserX className="w-12 h-12 text-gray-400 mx-auto mb-3" />
           <p className="text-gray-500">Aucun employé trouvé</p>
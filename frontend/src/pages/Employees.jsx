@@ -2,14 +2,20 @@ import { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { useAuth } from '../context/AuthContext';
 import axiosInstance from '../utils/axios';
-import { UserPlus, Mail, Phone, Briefcase, Shield, ShieldCheck, ShieldAlert, Calendar, Edit, Trash2, Lock, Power, Search, Filter, X } from 'lucide-react';
+import { UserPlus, Mail, Phone, Briefcase, Shield, ShieldCheck, ShieldAlert, Calendar, Edit, Trash2, Lock, Power, Search, Filter, X, ChevronDown } from 'lucide-react';
+
+// Taille d'une page de la liste (pagination par curseur côté serveur)
+const PAGE_SIZE = 50;
+// Nombre maximum de résultats d'une recherche par nom ou email
+const SEARCH_LIMIT = 50;
 
 const Employees = () => {
   const navigate = useNavigate();
   const { user } = useAuth();
   const [employees, setEmployees] = useState([]);
-  const [filteredEmployees, setFilteredEmployees] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [error, setError] = useState('');
   const [successMessage, setSuccessMessage] = useState('');
   
@@ -23,18 +29,42 @@ const Employees = () => {
   const departments = ['IT', 'Commercial', 'Marketing', 'Comptabilité', 'RH', 'Logistique'];
   const roles = ['ADMIN', 'MANAGER', 'EMPLOYEE'];
 
+  // Recharger la première page à chaque changement de filtre (recherche retardée pendant la frappe)
   useEffect(() => {
-    fetchEmployees();
-  }, []);
-
-  useEffect(() => {
-    applyFilters();
-  }, [employees, searchTerm, departmentFilter, roleFilter, statusFilter]);
+    const timer = setTimeout(() => fetchEmployees(), searchTerm ? 300 : 0);
+    return () => clearTimeout(timer);
+  }, [searchTerm, departmentFilter, roleFilter, statusFilter]);
+
+  const pageParams = (cursor) => ({
+    size: PAGE_SIZE,
+    cursor: cursor || undefined,
+    department: departmentFilter || undefined,
+    role: roleFilter || undefined,
+    active: statusFilter === 'all' ? undefined : statusFilter === 'active'
+  });
+
+  // Recherche par nom ou email : index de l'annuaire côté serveur, les autres filtres sur ses résultats
+  const searchEmployees = async () => {
+    const response = await axiosInstance.get('/users/search', {
+      params: { q: searchTerm, limit: SEARCH_LIMIT, includeInactive: true }
+    });
+    return response.data.filter(emp =>
+      (!departmentFilter || emp.department === departmentFilter) &&
+      (!roleFilter || emp.role === roleFilter) &&
+      (statusFilter === 'all' || emp.active === (statusFilter === 'active'))
+    );
+  };
 
   const fetchEmployees = async () => {
     try {
-      const response = await axiosInstance.get('/users');
-      setEmployees(response.data);
+      if (searchTerm.trim()) {
+        setEmployees(await searchEmployees());
+        setNextCursor(null);
+      } else {
+        const response = await axiosInstance.get('/users', { params: pageParams(null) });
+        setEmployees(response.data.items);
+        setNextCursor(response.data.nextCursor);
+      }
     } catch (err) {
       console.error('❌ Erreur lors du chargement des employés:', err);
       setError('Erreur lors du chargement des employés');
@@ -43,35 +73,18 @@ const Employees = () => {
     }
   };
 
-  const applyFilters = () => {
-    let filtered = [...employees];
-
-    // Filtre par recherche (nom, email)
-    if (searchTerm) {
-      filtered = filtered.filter(emp => 
-        `${emp.firstName} ${emp.lastName}`.toLowerCase().includes(searchTerm.toLowerCase()) ||
-        emp.email.toLowerCase().includes(searchTerm.toLowerCase())
-      );
-    }
-
-    // Filtre par département
-    if (departmentFilter) {
-      filtered = filtered.filter(emp => emp.department === departmentFilter);
-    }
-
-    // Filtre par rôle
-    if (roleFilter) {
-      filtered = filtered.filter(emp => emp.role === roleFilter);
-    }
-
-    // Filtre par statut
-    if (statusFilter === 'active') {
-      filtered = filtered.filter(emp => emp.active);
-    } else if (statusFilter === 'inactive') {
-      filtered = filtered.filter(emp => !emp.active);
+  const loadMore = async () => {
+    setLoadingMore(true);
+    try {
+      const response = await axiosInstance.get('/users', { params: pageParams(nextCursor) });
+      setEmployees(prev => [...prev, ...response.data.items]);
+      setNextCursor(response.data.nextCursor);
+    } catch (err) {
+      console.error('❌ Erreur lors du chargement des employés:', err);
+      setError('Erreur lors du chargement des employés');
+    } finally {
+      setLoadingMore(false);
     }
-
-    setFilteredEmployees(filtered);
   };
 
   const clearFilters = () => {
@@ -181,7 +194,7 @@ const Employees = () => {
         <div>
           <h1 className="text-2xl font-bold text-gray-800">Employés</h1>
           <p className="text-gray-600 text-sm mt-1">
-            {filteredEmployees.length} employé(s) {hasActiveFilters && `sur ${employees.length} au total`}
+            {employees.length} employé(s) {nextCursor ? 'affichés' : hasActiveFilters && 'correspondant aux filtres'}
           </p>
         </div>
         
@@ -276,13 +289,13 @@ const Employees = () => {
       </div>
 
       {/* Liste des employés */}
-      {filteredEmployees.length === 0 ? (
+      {employees.length === 0 ? (
         <div className="bg-white rounded-lg shadow-md p-8 text-center">
           <p className="text-gray-500">Aucun employé trouvé avec ces critères</p>
         </div>
       ) : (
         <div className="grid grid-cols-1 md:grid-cols-2 lg:grid-cols-3 gap-6">
-          {filteredEmployees.map((employee) => (
+          {employees.map((employee) => (
             <div
               key={employee.id}
               className={`bg-white rounded-lg shadow-md p-6 hover:shadow-lg transition-shadow border ${
@@ -383,6 +396,20 @@ const Employees = () => {
           ))}
         </div>
       )}
+
+      {/* Page suivante */}
+      {nextCursor && (
+        <div className="flex justify-center mt-6">
+          <button
+            onClick={loadMore}
+            disabled={loadingMore}
+            className="flex items-center gap-2 px-4 py-2 bg-white border border-gray-300 text-gray-700 rounded-lg hover:bg-gray-50 disabled:opacity-50 transition-colors shadow-sm"
+          >
+            <ChevronDown className="h-5 w-5" />
+            {loadingMore ? 'Chargement...' : 'Afficher plus d\'employés'}
+          </button>
+        </div>
+      )}
     </div>
   );
 };
@@ -27,7 +27,7 @@ const LeavesPlanning = () => {
   const fetchData = async () => {
     try {
       // Récupérer les employés
-      const employeesResponse = await axiosInstance.get('/users');
+      const employeesResponse = await axiosInstance.get('/users', { params: { all: true } });
       setEmployees(employeesResponse.data);
       setFilteredEmployees(employeesResponse.data);
 
@@ -4,9 +4,63 @@ import apiService from '../services/apiService';
 import { timeAgo } from '../utils/formatters';
 import { MessageSquare, Send, Search, User, Circle, ArrowLeft } from 'lucide-react';
 
+// ✅ Autocomplétion des destinataires : recherche côté serveur au lieu de charger tout l'annuaire
+const RecipientSearch = ({ currentUserId, onSelect, className = '' }) => {
+  const [query, setQuery] = useState('');
+  const [results, setResults] = useState([]);
+
+  useEffect(() => {
+    if (!query.trim()) {
+      setResults([]);
+      return;
+    }
+    const timer = setTimeout(async () => {
+      try {
+        const response = await apiService.searchUsers(query, 8);
+        setResults(response.data.filter(u => u.id !== currentUserId));
+      } catch (error) {
+        console.error('Erreur recherche utilisateurs:', error);
+      }
+    }, 200);
+    return () => clearTimeout(timer);
+  }, [query, currentUserId]);
+
+  const handleSelect = (selectedUser) => {
+    onSelect(selectedUser);
+    setQuery('');
+    setResults([]);
+  };
+
+  return (
+    <div className={`relative ${className}`}>
+      <input
+        type="text"
+        placeholder="💬 Nouvelle conversation : nom, email, service..."
+        value={query}
+        onChange={(e) => setQuery(e.target.value)}
+        className="w-full px-4 py-2 border border-gray-300 rounded-lg focus:ring-2 focus:ring-blue-500 bg-white text-sm"
+      />
+      {results.length > 0 && (
+        <ul className="absolute z-10 mt-1 w-full bg-white border border-gray-200 rounded-lg shadow-lg max-h-64 overflow-y-auto text-left">
+          {results.map(u => (
+            <li key={u.id}>
+              <button
+                type="button"
+                onClick={() => handleSelect(u)}
+                className="w-full px-4 py-2 hover:bg-blue-50 text-sm"
+              >
+                {u.firstName} {u.lastName} • {u.department}
+              </button>
+            </li>
+          ))}
+        </ul>
+      )}
+    </div>
+  );
+};
+
 const Messages = () => {
   const { user } = useAuth();
-  const [users, setUsers] = useState([]);
   const [messages, setMessages] = useState([]);
   const [conversations, setConversations] = useState([]);
   const [selectedConversation, setSelectedConversation] = useState(null);
@@ -39,10 +93,6 @@ const Messages = () => {
 
   const loadData = async () => {
     try {
-      // Charger tous les utilisateurs
-      const usersResponse = await apiService.getAllUsers();
-      setUsers(usersResponse.data);
-
       // Charger tous les messages (reçus + envoyés)
       const [receivedResponse, sentResponse] = await Promise.all([
         apiService.getReceivedMessages(user.id),
@@ -52,8 +102,15 @@ const Messages = () => {
       const allMessages = [...receivedResponse.data, ...sentResponse.data];
       setMessages(allMessages);
 
+      // Charger uniquement les interlocuteurs (et non tout l'annuaire)
+      const partnerIds = [...new Set(allMessages.map(m => m.senderId === user.id ? m.recipientId : m.senderId))];
+      const partnerResponses = await Promise.all(
+        partnerIds.map(id => apiService.getUserById(id).catch(() => null))
+      );
+      const partners = partnerResponses.filter(Boolean).map(response => response.data);
+
       // Créer les conversations
-      const updatedConversations = createConversations(allMessages, usersResponse.data);
+      const updatedConversations = createConversations(allMessages, partners);
       
       // ✅ FIX: Restaurer la conversation sélectionnée après le reload
       if (selectedConvRef.current) {
@@ -181,8 +238,9 @@ const Messages = () => {
     }
   };
 
-  const handleStartNewConversation = (userId) => {
-    if (!userId) return;
+  const handleStartNewConversation = (otherUser) => {
+    if (!otherUser) return;
+    const userId = otherUser.id;
     
     const existingConversation = conversations.find(c => c.userId === userId);
     
@@ -191,9 +249,6 @@ const Messages = () => {
       handleSelectConversation(existingConversation);
     } else {
       // ✅ Créer une nouvelle conversation vide
-      const otherUser = users.find(u => u.id === userId);
-      if (!otherUser) return;
-      
       const newConversation = {
         userId,
         user: otherUser,
@@ -257,25 +312,7 @@ const Messages = () => {
           </div>
 
           {/* ✅ Nouvelle conversation - Toujours visible */}
-          <select
-            onChange={(e) => {
-              if (e.target.value) {
-                handleStartNewConversation(parseInt(e.target.value));
-                e.target.value = '';
-              }
-            }}
-            className="w-full px-4 py-2 border border-gray-300 rounded-lg focus:ring-2 focus:ring-blue-500 bg-white text-sm"
-          >
-            <option value="">💬 Nouvelle conversation...</option>
-            {users
-              .filter(u => u.id !== user.id && u.active)
-              .sort((a, b) => `${a.firstName} ${a.lastName}`.localeCompare(`${b.firstName} ${b.lastName}`))
-              .map(u => (
-                <option key={u.id} value={u.id}>
-                  {u.firstName} {u.lastName} • {u.department}
-                </option>
-              ))}
-          </select>
+          <RecipientSearch currentUserId={user.id} onSelect={handleStartNewConversation} />
         </div>
 
         {/* Liste des conversations */}
@@ -284,7 +321,7 @@ const Messages = () => {
             <div className="p-8 text-center text-gray-500">
               <MessageSquare className="w-16 h-16 mx-auto mb-4 text-gray-300" />
               <p className="mb-2 font-medium">Aucune conversation</p>
-              <p className="text-sm">Utilisez le menu ci-dessus pour démarrer une conversation</p>
+              <p className="text-sm">Recherchez un collègue ci-dessus pour démarrer une conversation</p>
             </div>
           ) : (
             <>
@@ -450,25 +487,7 @@ const Messages = () => {
             <p className="text-sm mb-6">Choisissez une conversation dans la liste pour commencer à échanger</p>
             
             {/* Nouvelle conversation */}
-            <select
-              onChange={(e) => {
-                if (e.target.value) {
-                  handleStartNewConversation(parseInt(e.target.value));
-                  e.target.value = '';
-                }
-              }}
-              className="px-4 py-2 border border-gray-300 rounded-lg focus:ring-2 focus:ring-blue-500 bg-white"
-            >
-              <option value="">💬 Nouvelle conversation...</option>
-              {users
-                .filter(u => u.id !== user.id && u.active)
-                .sort((a, b) => `${a.firstName} ${a.lastName}`.localeCompare(`${b.firstName} ${b.lastName}`))
-                .map(u => (
-                  <option key={u.id} value={u.id}>
-                    {u.firstName} {u.lastName} • {u.department}
-                  </option>
-                ))}
-            </select>
+            <RecipientSearch currentUserId={user.id} onSelect={handleStartNewConversation} className="w-80 mx-auto" />
           </div>
         </div>
       )}
@@ -7,6 +7,11 @@ const apiService = {
   checkIn: (userId) => axiosInstance.post(`/attendances/check-in/${userId}`),
   checkOut: (userId) => axiosInstance.post(`/attendances/check-out/${userId}`),
   getAttendances: () => axiosInstance.get(`/attendances`),
+  // Planning compact (une ligne par employé actif, un statut par jour) construit côté serveur
+  getAttendanceMatrix: (from, to, department) =>
+    axiosInstance.get(`/attendances/matrix`, {
+      params: { from, to, department: department || undefined },
+    }),
   getUserAttendances: (userId) => axiosInstance.get(`/attendances/user/${userId}`),
   getAttendancesByDateRange: (userId, startDate, endDate) =>
     axiosInstance.get(`/attendances/user/${userId}/range`, {
@@ -64,10 +69,11 @@ const apiService = {
   // ============================================
   // USERS (Utilisateurs)
   // ============================================
-  getAllUsers: () => axiosInstance.get(`/users`),
+  getAllUsers: () => axiosInstance.get(`/users`, { params: { all: true } }),
   getActiveUsers: () => axiosInstance.get(`/users/active`),
   getCurrentUser: () => axiosInstance.get(`/users/me`),
   getUserById: (id) => axiosInstance.get(`/users/${id}`),
+  searchUsers: (q, limit = 10) => axiosInstance.get(`/users/search`, { params: { q, limit } }),
   getUsersByDepartment: (department) => axiosInstance.get(`/users/department/${department}`),
   getUsersByRole: (role) => axiosInstance.get(`/users/role/${role}`),
   updateUser: (id, data) => axiosInstance.put(`/users/${id}`, data),
@@ -82,6 +88,10 @@ const apiService = {
   // ADMIN (Administration)
   // ============================================
   createUser: (userData) => axiosInstance.post('/admin/users', userData),
+  // file : fichier .csv (avec en-tête) ou .ndjson (un utilisateur JSON par ligne)
+  importUsers: (file) => axiosInstance.post('/admin/users/import', file, {
+    headers: { 'Content-Type': file.name?.endsWith('.csv') ? 'text/csv' : 'application/x-ndjson' },
+  }),
   deactivateUser: (userId) => axiosInstance.patch(`/admin/users/${userId}/deactivate`),
   activateUser: (userId) => axiosInstance.patch(`/admin/users/${userId}/activate`),
   resetPassword: (userId, newPassword) => 